@@ -0,0 +1,87 @@
+package com.migration.todo.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.migration.todo.DatabaseSettings;
+import com.migration.todo.TodoDatabase;
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoList;
+import com.migration.todo.TodoRepository;
+
+/**
+ * A TodoDatabase on a fresh temp file for the duration of one benchmark trial.
+ */
+final class BenchmarkDatabase {
+	private final Path file;
+	private final TodoRepository repository;
+
+	private BenchmarkDatabase(Path file, TodoRepository repository) {
+		this.file = file;
+		this.repository = repository;
+	}
+
+	/**
+	 * Create an empty database. With cached false the read-through cache keeps
+	 * nothing, so every read goes to SQLite.
+	 */
+	static BenchmarkDatabase open(boolean cached) throws IOException {
+		Path file = Files.createTempFile("todo-bench-", ".db");
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.setDbFile(file.toString());
+		if (!cached) {
+			settings.setCacheMaxItemLists(0);
+			settings.setCacheMaxItems(0);
+		}
+		TodoDatabase.initializeDatabase(settings);
+		return new BenchmarkDatabase(file, new TodoRepository());
+	}
+
+	TodoRepository repository() {
+		return repository;
+	}
+
+	long createList(String name) {
+		TodoList list = repository.createTodoList(name);
+		if (list == null) {
+			throw new IllegalStateException("Could not create list " + name);
+		}
+		return list.getId();
+	}
+
+	/**
+	 * Add count items to a list using batch inserts and return their ids in order.
+	 */
+	long[] addItems(long listId, int count) {
+		long[] ids = new long[count];
+		int created = 0;
+		while (created < count) {
+			int size = Math.min(TodoRepository.MAX_BATCH_SIZE, count - created);
+			List<TodoItem> batch = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				int n = created + i;
+				batch.add(new TodoItem(0, listId, "Item " + n, "Description of item " + n, n % 3 == 0));
+			}
+			for (TodoItem item : repository.createTodos(batch)) {
+				if (item == null) {
+					throw new IllegalStateException("Could not populate list " + listId);
+				}
+				ids[created++] = item.getId();
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Shut the database down and delete its files.
+	 */
+	void close() throws IOException {
+		TodoDatabase.shutdown();
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(Path.of(file + "-wal"));
+		Files.deleteIfExists(Path.of(file + "-shm"));
+	}
+}
@@ -0,0 +1,31 @@
+package com.migration.todo.benchmarks;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH command line and runs
+ * the selected benchmarks once per thread count in -Dbench.threads
+ * (default "1,4,16"), which replaces JMH's single -t value.
+ */
+public class BenchmarkRunner {
+	public static final String THREADS_PROPERTY = "bench.threads";
+
+	public static void main(String[] args) throws Exception {
+		if (Arrays.asList(args).contains("-h") || Arrays.asList(args).contains("-l")
+				|| Arrays.asList(args).contains("-lp")) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		for (String value : System.getProperty(THREADS_PROPERTY, "1,4,16").split(",")) {
+			int threads = Integer.parseInt(value.trim());
+			System.out.println("# Running with " + threads + " thread(s)");
+			new Runner(new OptionsBuilder().parent(commandLine).threads(threads).build()).run();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.migration.todo.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.migration.todo.TodoItem;
+
+/**
+ * Single-item writes (createTodo, toggleTodoCompletion) against a list that
+ * already holds datasetSize items. Run with several thread counts to see how
+ * well concurrent writers share group commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemWriteBenchmark {
+
+	@Param({"1000", "100000"})
+	public int datasetSize;
+
+	private BenchmarkDatabase database;
+	private long listId;
+	private long[] itemIds;
+
+	@Setup
+	public void setUp() throws IOException {
+		database = BenchmarkDatabase.open(true);
+		listId = database.createList("Benchmark");
+		itemIds = database.addItems(listId, datasetSize);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	public TodoItem createTodo() {
+		return database.repository().createTodo(listId, "New item", "Created by the benchmark", false);
+	}
+
+	@Benchmark
+	public TodoItem toggleTodoCompletion() {
+		long id = itemIds[ThreadLocalRandom.current().nextInt(itemIds.length)];
+		return database.repository().toggleTodoCompletion(id);
+	}
+}
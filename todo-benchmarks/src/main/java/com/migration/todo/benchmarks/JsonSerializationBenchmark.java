@@ -0,0 +1,77 @@
+package com.migration.todo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoList;
+
+/**
+ * Jackson (de)serialization of the REST payloads, independent of the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+	private static final TypeReference<List<TodoItem>> ITEM_LIST = new TypeReference<List<TodoItem>>() {
+	};
+
+	@Param({"1", "100", "10000"})
+	public int itemCount;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private TodoItem item;
+	private TodoList list;
+	private List<TodoItem> items;
+	private byte[] itemsJson;
+
+	@Setup
+	public void setUp() throws Exception {
+		item = new TodoItem(1, 1, "Buy milk", "Two litres, semi-skimmed", false);
+		list = new TodoList(1, "Groceries");
+		items = new ArrayList<>(itemCount);
+		for (int i = 0; i < itemCount; i++) {
+			items.add(new TodoItem(i + 1, 1, "Item " + i, "Description of item " + i, i % 3 == 0));
+		}
+		itemsJson = objectMapper.writeValueAsBytes(items);
+	}
+
+	@Benchmark
+	public byte[] serializeTodoItem() throws Exception {
+		return objectMapper.writeValueAsBytes(item);
+	}
+
+	@Benchmark
+	public byte[] serializeTodoList() throws Exception {
+		return objectMapper.writeValueAsBytes(list);
+	}
+
+	@Benchmark
+	public byte[] serializeItemList() throws Exception {
+		return objectMapper.writeValueAsBytes(items);
+	}
+
+	@Benchmark
+	public List<TodoItem> deserializeItemList() throws Exception {
+		return objectMapper.readValue(itemsJson, ITEM_LIST);
+	}
+}
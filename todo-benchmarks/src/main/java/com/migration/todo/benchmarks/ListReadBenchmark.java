@@ -0,0 +1,58 @@
+package com.migration.todo.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.migration.todo.TodoList;
+
+/**
+ * Loading all lists (GET /api/lists, getAllTodoLists RPC).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListReadBenchmark {
+
+	@Param({"10", "1000"})
+	public int listCount;
+
+	@Param({"true", "false"})
+	public boolean cached;
+
+	private BenchmarkDatabase database;
+
+	@Setup
+	public void setUp() throws IOException {
+		database = BenchmarkDatabase.open(cached);
+		for (int i = 0; i < listCount; i++) {
+			database.createList("List " + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	public List<TodoList> getAllTodoLists() {
+		return database.repository().getAllTodoLists();
+	}
+}
@@ -0,0 +1,82 @@
+package com.migration.todo.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.migration.todo.TodoItem;
+
+/**
+ * Encoding and decoding of large item lists in each format the REST API
+ * negotiates (JSON, Smile and CBOR). The encoded size of the list is printed
+ * once per trial, since JMH only reports times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+	private static final TypeReference<List<TodoItem>> ITEM_LIST = new TypeReference<List<TodoItem>>() {
+	};
+
+	@Param({"json", "smile", "cbor"})
+	public String format;
+
+	@Param({"100", "10000"})
+	public int itemCount;
+
+	private ObjectMapper objectMapper;
+	private List<TodoItem> items;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws Exception {
+		switch (format) {
+			case "smile":
+				objectMapper = new SmileMapper();
+				break;
+			case "cbor":
+				objectMapper = new CBORMapper();
+				break;
+			default:
+				objectMapper = new ObjectMapper();
+				break;
+		}
+		items = new ArrayList<>(itemCount);
+		for (int i = 0; i < itemCount; i++) {
+			items.add(new TodoItem(i + 1, 1, "Item " + i, "Description of item " + i, i % 3 == 0));
+		}
+		encoded = objectMapper.writeValueAsBytes(items);
+		System.out.printf("%n%s, %d items: %d bytes (%.1f per item)%n",
+				format, itemCount, encoded.length, (double) encoded.length / itemCount);
+	}
+
+	@Benchmark
+	public byte[] encodeItemList() throws Exception {
+		return objectMapper.writeValueAsBytes(items);
+	}
+
+	@Benchmark
+	public List<TodoItem> decodeItemList() throws Exception {
+		return objectMapper.readValue(encoded, ITEM_LIST);
+	}
+}
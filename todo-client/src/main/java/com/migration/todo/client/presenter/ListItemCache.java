@@ -0,0 +1,139 @@
+package com.migration.todo.client.presenter;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoItemChanges;
+
+/**
+ * Items of recently opened lists, so that switching back to a list shows it
+ * straight away while it is revalidated in the background. Each entry keeps
+ * the change version it is up to date with, so revalidating only fetches the
+ * changes since then (see TodoService.getChangesSince). Beyond the maximum
+ * number of lists, the least recently used one is dropped.
+ */
+class ListItemCache {
+
+	private static final Comparator<TodoItem> BY_ID = new Comparator<TodoItem>() {
+		@Override
+		public int compare(TodoItem a, TodoItem b) {
+			return Long.compare(a.getId(), b.getId());
+		}
+	};
+
+	/**
+	 * The items of one list in id order, and the change version they are
+	 * current to. Version 0 means the items were not loaded through change
+	 * versions, and the next revalidation replaces them all.
+	 */
+	static class CachedList {
+		private final List<TodoItem> items;
+		private long version;
+		// A full sync has more pages to come; continue it from the version
+		private boolean fullSync;
+
+		CachedList(List<TodoItem> items, long version) {
+			this.items = items;
+			this.version = version;
+		}
+
+		List<TodoItem> getItems() {
+			return items;
+		}
+
+		long getVersion() {
+			return version;
+		}
+
+		boolean isFullSync() {
+			return fullSync;
+		}
+
+		/**
+		 * Apply changes fetched since this entry's version. Returns true if
+		 * any item was added, updated or removed. A reset drops the entry
+		 * back to version 0, so that it is replaced in full by the next
+		 * changes fetched.
+		 */
+		boolean apply(TodoItemChanges changes) {
+			if (changes.isReset()) {
+				version = 0;
+				fullSync = false;
+				return false;
+			}
+			boolean changed = false;
+			if (version == 0) {
+				// A full sync: the changes are the whole list, in version order
+				changed = !items.isEmpty() || !changes.getItems().isEmpty();
+				items.clear();
+				items.addAll(changes.getItems());
+				Collections.sort(items, BY_ID);
+			} else {
+				for (TodoItem item : changes.getItems()) {
+					putItem(items, item);
+					changed = true;
+				}
+			}
+			for (Long id : changes.getDeletedIds()) {
+				changed |= removeItem(items, id);
+			}
+			version = changes.getVersion();
+			fullSync = changes.isFullSync() && changes.isHasMore();
+			return changed;
+		}
+	}
+
+	/**
+	 * Put an item into a list kept in id order, replacing the item with the
+	 * same id. Returns true if the item was not in the list before.
+	 */
+	static boolean putItem(List<TodoItem> items, TodoItem item) {
+		int index = Collections.binarySearch(items, item, BY_ID);
+		if (index >= 0) {
+			items.set(index, item);
+			return false;
+		}
+		items.add(-index - 1, item);
+		return true;
+	}
+
+	/**
+	 * Remove an item from a list kept in id order. Returns true if it was there.
+	 */
+	static boolean removeItem(List<TodoItem> items, long id) {
+		int index = Collections.binarySearch(items, new TodoItem(id, 0, null, null, false), BY_ID);
+		if (index < 0) {
+			return false;
+		}
+		items.remove(index);
+		return true;
+	}
+
+	private final Map<Long, CachedList> entries;
+
+	ListItemCache(final int maxLists) {
+		entries = new LinkedHashMap<Long, CachedList>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, CachedList> eldest) {
+				return size() > maxLists;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached items of a list, or null. Marks the list as recently used.
+	 */
+	CachedList get(long listId) {
+		return entries.get(listId);
+	}
+
+	void put(long listId, CachedList entry) {
+		entries.put(listId, entry);
+	}
+}
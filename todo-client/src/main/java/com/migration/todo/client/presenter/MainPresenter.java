@@ -1,15 +1,24 @@
 package com.migration.todo.client.presenter;
 
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.dom.client.ChangeEvent;
 import com.google.gwt.event.dom.client.ChangeHandler;
+import com.google.gwt.user.client.Cookies;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.Button;
+import com.migration.todo.TodoBootstrap;
+import com.migration.todo.TodoChangeBatch;
+import com.migration.todo.TodoChangeEvent;
 import com.migration.todo.TodoItem;
+import com.migration.todo.TodoItemChanges;
+import com.migration.todo.TodoItemPage;
 import com.migration.todo.TodoList;
 import com.migration.todo.TodoService;
 import com.migration.todo.TodoServiceAsync;
@@ -24,12 +33,33 @@ import com.migration.todo.client.ui.TodoListView;
  */
 public class MainPresenter {
 
+	// Remembers the most recently opened list across page loads
+	private static final String LAST_LIST_COOKIE = "todo.lastListId";
+	private static final long LAST_LIST_COOKIE_MILLIS = 365L * 24 * 60 * 60 * 1000;
+	private static final int PAGE_SIZE = 100;
+	// Lists with more items are shown in the grid's virtual scrolling mode
+	private static final int VIRTUAL_SCROLL_THRESHOLD = 1000;
+	private static final int MAX_CACHED_LISTS = 20;
+	// Change feed: pause before polling again after an empty batch (the server
+	// answers at once when too many polls are waiting), and after an error
+	private static final int CHANGE_POLL_IDLE_DELAY_MS = 2000;
+	private static final int CHANGE_POLL_RETRY_DELAY_MS = 10000;
+
 	private final MainView view;
 	private final TodoServiceAsync todoService;
 	private final AddItemDialog addItemDialog;
+	private final ListItemCache listItemCache = new ListItemCache(MAX_CACHED_LISTS);
 	private List<TodoList> allLists;
 	private List<TodoItem> currentListItems;
+	// False while the rest of currentListItems is still being loaded page by page
+	private boolean currentListComplete;
 	private long selectedListId = -1;
+	// Change feed position of the selected list, -1 until known
+	private long changeSequence = -1;
+	// Bumped when another list is watched, so that polls for the previous one stop
+	private int changeWatch;
+	// New items of the selected list already shown; both createTodo and the feed report them
+	private final Set<Long> shownCreatedIds = new HashSet<Long>();
 
 	public MainPresenter(MainView view) {
 		this.view = view;
@@ -89,22 +119,33 @@ public class MainPresenter {
 	}
 
 	/**
-	 * Load all todo lists from the server.
+	 * Load all todo lists and the items of the last opened list (or the first
+	 * list) from the server in a single request.
 	 */
 	private void loadTodoLists() {
 		view.getTodoListView().showMessage("Loading...");
 		view.getTodoListView().setItemsEnabled(false);
 		view.getTodoItemsGridView().setEnabled(false);
 
-		todoService.getAllTodoLists(new AsyncCallback<List<TodoList>>() {
+		todoService.bootstrap(getLastListId(), PAGE_SIZE, new AsyncCallback<TodoBootstrap>() {
 			@Override
-			public void onSuccess(List<TodoList> result) {
-				allLists = result;
-				view.getTodoListView().setTodoLists(result);
+			public void onSuccess(TodoBootstrap result) {
+				allLists = result.getLists();
+				view.getTodoListView().setTodoLists(allLists);
 				view.getTodoListView().clearMessage();
 
-				if (!result.isEmpty()) {
-					view.getTodoListView().setItemsEnabled(true);
+				if (allLists.isEmpty()) {
+					return;
+				}
+				view.getTodoListView().setItemsEnabled(true);
+
+				TodoList selectedList = findListById(result.getListId());
+				if (selectedList != null) {
+					selectedListId = selectedList.getId();
+					view.getTodoListView().setSelectedListId(selectedListId);
+					view.getTodoItemsGridView().setListName(selectedList.getName());
+					watchChanges(selectedListId);
+					showFirstPage(selectedListId, result.getItems());
 				}
 			}
 
@@ -118,19 +159,189 @@ public class MainPresenter {
 	}
 
 	/**
-	 * Load items for the selected todo list.
+	 * Load items for the selected todo list. A recently opened list is shown
+	 * from the cache straight away and brought up to date in the background.
 	 */
 	private void loadListItems(long listId) {
+		if (showVirtualItems(listId, null)) {
+			return;
+		}
+
+		ListItemCache.CachedList cached = listItemCache.get(listId);
+		if (cached != null) {
+			showListItems(cached.getItems());
+			revalidateListItems(listId, cached, false);
+			return;
+		}
+
 		view.getTodoItemsGridView().showMessage("Loading items...");
 		view.getTodoItemsGridView().setEnabled(false);
+		todoService.getTodoItemsPage(listId, 0, PAGE_SIZE, new AsyncCallback<TodoItemPage>() {
+			@Override
+			public void onSuccess(TodoItemPage result) {
+				if (listId == selectedListId) {
+					showFirstPage(listId, result);
+				}
+			}
 
-		todoService.getTodoItemsByListId(listId, new AsyncCallback<List<TodoItem>>() {
 			@Override
-			public void onSuccess(List<TodoItem> result) {
-				currentListItems = result;
-				view.getTodoItemsGridView().setTodoItems(result);
-				view.getTodoItemsGridView().clearMessage();
-				view.getTodoItemsGridView().setEnabled(true);
+			public void onFailure(Throwable caught) {
+				if (listId == selectedListId) {
+					view.getTodoItemsGridView().showMessage("Error loading items");
+				}
+				System.err.println("Error loading items: " + caught.getMessage());
+				caught.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Fetch the changes to a list since the version of its cache entry, apply
+	 * them and cache the entry. The grid is
+	 * updated if the list is open and anything changed; it only touches the
+	 * rows that did.
+	 */
+	private void revalidateListItems(final long listId, final ListItemCache.CachedList entry,
+			final boolean changedSoFar) {
+		todoService.getChangesSince(listId, entry.getVersion(), entry.isFullSync(), new AsyncCallback<TodoItemChanges>() {
+			@Override
+			public void onSuccess(TodoItemChanges result) {
+				boolean changed = entry.apply(result) || changedSoFar;
+				if (result.isHasMore() || result.isReset()) {
+					revalidateListItems(listId, entry, changed);
+					return;
+				}
+				listItemCache.put(listId, entry);
+				setItemCount(listId, entry.getItems().size());
+				if (listId != selectedListId || currentListItems == null) {
+					// Not open, or already shown in virtual mode
+					return;
+				}
+				if (showVirtualItems(listId, null)) {
+					// It has grown long enough for virtual mode
+					return;
+				}
+				boolean shown = currentListItems == entry.getItems();
+				if (changed || !shown) {
+					showListItems(entry.getItems());
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable caught) {
+				if (listId == selectedListId && currentListItems != entry.getItems()) {
+					view.getTodoItemsGridView().showMessage("Error loading items");
+				}
+				System.err.println("Error loading items: " + caught.getMessage());
+				caught.printStackTrace();
+			}
+		});
+	}
+
+	private void showListItems(List<TodoItem> items) {
+		currentListItems = items;
+		currentListComplete = true;
+		view.getTodoItemsGridView().setTodoItems(items);
+		view.getTodoItemsGridView().clearMessage();
+		view.getTodoItemsGridView().setEnabled(true);
+	}
+
+	/**
+	 * Show the first page of a list's items, then fetch the rest of the list
+	 * page by page. Once complete, the list is cached at the first page's
+	 * change version.
+	 */
+	private void showFirstPage(long listId, TodoItemPage page) {
+		if (showVirtualItems(listId, page)) {
+			return;
+		}
+		showListItems(page.getItems());
+
+		if (page.getNextCursor() != null) {
+			currentListComplete = false;
+			loadRemainingItems(listId, currentListItems, page.getNextCursor(), page.getVersion());
+		} else {
+			cacheLoadedItems(listId, currentListItems, page.getVersion());
+		}
+	}
+
+	/**
+	 * Cache a list loaded in pages at the version its first page was read at.
+	 * The pages after it may be newer still; revalidating repeats those
+	 * changes, which is harmless.
+	 */
+	private void cacheLoadedItems(long listId, List<TodoItem> items, long version) {
+		listItemCache.put(listId, new ListItemCache.CachedList(items, version));
+		setItemCount(listId, items.size());
+	}
+
+	/**
+	 * Keep a list's item count in step with the items seen since the lists
+	 * were loaded. The count decides whether the list is shown in virtual mode.
+	 */
+	private void setItemCount(long listId, int itemCount) {
+		TodoList list = findListById(listId);
+		if (list != null) {
+			list.setItemCount(itemCount);
+		}
+	}
+
+	private void addItemCount(long listId, int delta) {
+		TodoList list = findListById(listId);
+		if (list != null) {
+			list.setItemCount(Math.max(0, list.getItemCount() + delta));
+		}
+	}
+
+	/**
+	 * Show a long list in the grid's virtual mode, which loads pages as they
+	 * scroll into view instead of keeping every item. Returns false for lists
+	 * short enough to load in full.
+	 */
+	private boolean showVirtualItems(final long listId, TodoItemPage firstPage) {
+		TodoList list = findListById(listId);
+		if (list == null || list.getItemCount() <= VIRTUAL_SCROLL_THRESHOLD) {
+			return false;
+		}
+		currentListItems = null;
+		view.getTodoItemsGridView().setVirtualItems(list.getItemCount(), PAGE_SIZE, firstPage,
+				new TodoItemsGridView.ItemPageLoader() {
+					@Override
+					public void loadPage(long afterId, int limit, AsyncCallback<TodoItemPage> callback) {
+						todoService.getTodoItemsPage(listId, afterId, limit, callback);
+					}
+
+					@Override
+					public void loadPageAt(int offset, int limit, AsyncCallback<TodoItemPage> callback) {
+						todoService.getTodoItemsPageAt(listId, offset, limit, callback);
+					}
+				});
+		view.getTodoItemsGridView().setEnabled(true);
+		return true;
+	}
+
+	/**
+	 * Append the items of a list that follow the given cursor.
+	 */
+	private void loadRemainingItems(final long listId, final List<TodoItem> items, long afterId,
+			final long version) {
+		todoService.getTodoItemsPage(listId, afterId, PAGE_SIZE, new AsyncCallback<TodoItemPage>() {
+			@Override
+			public void onSuccess(TodoItemPage result) {
+				if (currentListItems != items) {
+					// Another list (or a fresh copy of this one) was opened in the meantime
+					return;
+				}
+				for (TodoItem item : result.getItems()) {
+					items.add(item);
+					view.getTodoItemsGridView().addTodoItem(item);
+				}
+				if (result.getNextCursor() != null) {
+					loadRemainingItems(listId, items, result.getNextCursor(), version);
+				} else {
+					currentListComplete = true;
+					cacheLoadedItems(listId, items, version);
+				}
 			}
 
 			@Override
@@ -142,6 +353,21 @@ public class MainPresenter {
 		});
 	}
 
+	/**
+	 * Get the list opened last time, or 0 when there is none.
+	 */
+	private long getLastListId() {
+		String value = Cookies.getCookie(LAST_LIST_COOKIE);
+		if (value != null) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				// Ignore a malformed cookie
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Handle list selection from the list view.
 	 */
@@ -151,11 +377,14 @@ public class MainPresenter {
 
 		if (selectedId > 0) {
 			selectedListId = selectedId;
+			Cookies.setCookie(LAST_LIST_COOKIE, String.valueOf(selectedId),
+					new Date(System.currentTimeMillis() + LAST_LIST_COOKIE_MILLIS));
 
 			// Find the list name
 			TodoList selectedList = findListById(selectedId);
 			if (selectedList != null) {
 				view.getTodoItemsGridView().setListName(selectedList.getName());
+				watchChanges(selectedId);
 				loadListItems(selectedId);
 			}
 		}
@@ -249,8 +478,16 @@ public class MainPresenter {
 		todoService.createTodo(listId, title, description, false, new AsyncCallback<TodoItem>() {
 			@Override
 			public void onSuccess(TodoItem result) {
-				currentListItems.add(result);
-				gridView.addTodoItem(result);
+				if (result == null) {
+					// The server could not store it
+					gridView.showMessage("Error adding item");
+					return;
+				}
+				if (result.getListId() == selectedListId) {
+					showCreatedItem(result);
+				} else {
+					addItemCount(result.getListId(), 1);
+				}
 
 				gridView.showMessage("Item added!");
 				new com.google.gwt.user.client.Timer() {
@@ -270,6 +507,138 @@ public class MainPresenter {
 		});
 	}
 
+	/**
+	 * Show an item created in the selected list, unless it is shown already.
+	 * While the list is still loading, items past the loaded part are left to
+	 * the page that will bring them.
+	 */
+	private void showCreatedItem(TodoItem item) {
+		if (!shownCreatedIds.add(item.getId())) {
+			return;
+		}
+		addItemCount(item.getListId(), 1);
+		if (currentListItems == null) {
+			view.getTodoItemsGridView().addTodoItem(item);
+		} else if (isLoaded(item.getId()) && ListItemCache.putItem(currentListItems, item)) {
+			view.getTodoItemsGridView().setTodoItems(currentListItems);
+		}
+	}
+
+	/**
+	 * Whether an item of the shown list falls in the part loaded so far.
+	 */
+	private boolean isLoaded(long itemId) {
+		return currentListComplete || (!currentListItems.isEmpty()
+				&& itemId <= currentListItems.get(currentListItems.size() - 1).getId());
+	}
+
+	/**
+	 * Follow the change feed of a list, so that changes made elsewhere show up
+	 * without reloading it. Stops following the previously selected list.
+	 */
+	private void watchChanges(long listId) {
+		changeWatch++;
+		changeSequence = -1;
+		shownCreatedIds.clear();
+		pollChanges(listId, changeWatch);
+	}
+
+	private void pollChanges(final long listId, final int watch) {
+		todoService.pollChangeEvents(listId, changeSequence, new AsyncCallback<TodoChangeBatch>() {
+			@Override
+			public void onSuccess(TodoChangeBatch result) {
+				if (watch != changeWatch) {
+					return;
+				}
+				boolean first = changeSequence < 0;
+				changeSequence = result.getLastSequence();
+				if (result.isReset()) {
+					// Changes were missed; bring the list up to date instead
+					loadListItems(listId);
+				} else {
+					applyChangeEvents(listId, result.getEvents());
+				}
+				if (first || !result.getEvents().isEmpty()) {
+					pollChanges(listId, watch);
+				} else {
+					schedulePoll(listId, watch, CHANGE_POLL_IDLE_DELAY_MS);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable caught) {
+				System.err.println("Error polling for changes: " + caught.getMessage());
+				if (watch == changeWatch) {
+					schedulePoll(listId, watch, CHANGE_POLL_RETRY_DELAY_MS);
+				}
+			}
+		});
+	}
+
+	private void schedulePoll(final long listId, final int watch, int delayMillis) {
+		new com.google.gwt.user.client.Timer() {
+			@Override
+			public void run() {
+				if (watch == changeWatch) {
+					pollChanges(listId, watch);
+				}
+			}
+		}.schedule(delayMillis);
+	}
+
+	/**
+	 * Apply changes of the selected list to the items shown. A fully loaded
+	 * list is updated in place (it is also the cached copy) and the grid
+	 * reconciled once; in virtual mode the grid updates its loaded pages.
+	 * A list that grows past the threshold switches to virtual mode.
+	 */
+	private void applyChangeEvents(long listId, List<TodoChangeEvent> events) {
+		TodoItemsGridView gridView = view.getTodoItemsGridView();
+		boolean changed = false;
+		for (TodoChangeEvent event : events) {
+			switch (event.getType()) {
+			case LIST_DELETED:
+				loadTodoLists();
+				return;
+			case CREATED:
+				if (!shownCreatedIds.add(event.getItemId())) {
+					break;
+				}
+				addItemCount(listId, 1);
+				if (currentListItems == null) {
+					gridView.addTodoItem(event.getItem());
+				} else if (isLoaded(event.getItemId())) {
+					ListItemCache.putItem(currentListItems, event.getItem());
+					changed = true;
+				}
+				break;
+			case UPDATED:
+			case TOGGLED:
+				if (currentListItems == null) {
+					gridView.updateTodoItem(event.getItem());
+				} else if (isLoaded(event.getItemId())) {
+					ListItemCache.putItem(currentListItems, event.getItem());
+					changed = true;
+				}
+				break;
+			case DELETED:
+				addItemCount(listId, -1);
+				if (currentListItems == null) {
+					gridView.removeTodoItem(event.getItemId());
+				} else {
+					changed |= ListItemCache.removeItem(currentListItems, event.getItemId());
+				}
+				break;
+			}
+		}
+		if (currentListItems != null && showVirtualItems(listId, null)) {
+			return;
+		}
+		if (changed) {
+			gridView.setTodoItems(currentListItems);
+		}
+	}
+
 	/**
 	 * Update item completion status.
 	 */
@@ -308,7 +677,8 @@ public class MainPresenter {
 	}
 
 	/**
-	 * Find an item by its ID in the current list.
+	 * Find an item by its ID in the current list. Long lists are not held
+	 * here, so the grid is asked for the items it shows.
 	 */
 	private TodoItem findItemById(long id) {
 		if (currentListItems != null) {
@@ -317,8 +687,9 @@ public class MainPresenter {
 					return item;
 				}
 			}
+			return null;
 		}
-		return null;
+		return view.getTodoItemsGridView().getTodoItem(id);
 	}
 
 	/**
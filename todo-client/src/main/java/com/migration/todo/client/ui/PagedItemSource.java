@@ -0,0 +1,223 @@
+package com.migration.todo.client.ui;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoItemPage;
+
+/**
+ * Items of a list too long to keep on the client, loaded page by page as the
+ * virtual grid scrolls. Only the most recently used pages are kept. The
+ * cursor at which each loaded page starts is remembered (one ID per page), so
+ * those pages and the ones right after them are loaded by cursor; a page
+ * further away than that, e.g. after dragging the scrollbar, is loaded by its
+ * position in the list instead.
+ */
+class PagedItemSource {
+
+	private final int pageSize;
+	private final TodoItemsGridView.ItemPageLoader loader;
+	private final Runnable pageLoadedCallback;
+	private final Map<Integer, List<TodoItem>> pages;
+	// ID before each page whose start is known; page 0 starts after 0
+	private final TreeMap<Integer, Long> pageCursors = new TreeMap<Integer, Long>();
+	private final Set<Integer> loadingPages = new HashSet<Integer>();
+	private int itemCount;
+	private boolean disposed;
+
+	PagedItemSource(int itemCount, int pageSize, final int maxPages,
+			TodoItemsGridView.ItemPageLoader loader, Runnable pageLoadedCallback) {
+		this.itemCount = itemCount;
+		this.pageSize = pageSize;
+		this.loader = loader;
+		this.pageLoadedCallback = pageLoadedCallback;
+		this.pages = new LinkedHashMap<Integer, List<TodoItem>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<TodoItem>> eldest) {
+				return size() > maxPages;
+			}
+		};
+		pageCursors.put(0, 0L);
+	}
+
+	/**
+	 * Use a first page that was loaded already, e.g. by the bootstrap call.
+	 */
+	void seed(TodoItemPage page) {
+		pageLoaded(0, page);
+	}
+
+	/**
+	 * Number of items in the list. Starts from the list's stored count and is
+	 * corrected when the last page is reached.
+	 */
+	int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Get the item at an index, or null while its page is not loaded.
+	 */
+	TodoItem getItem(int index) {
+		List<TodoItem> items = pages.get(index / pageSize);
+		if (items == null) {
+			return null;
+		}
+		int offset = index % pageSize;
+		return offset < items.size() ? items.get(offset) : null;
+	}
+
+	/**
+	 * Start loading the pages that hold the items from index from (inclusive)
+	 * to to (exclusive) and are not loaded yet.
+	 */
+	void ensureLoaded(int from, int to) {
+		if (to <= from) {
+			return;
+		}
+		// Set once a page before the next one is on its way, which will tell its cursor
+		boolean waiting = false;
+		for (int page = from / pageSize; page <= (to - 1) / pageSize; page++) {
+			if (pages.containsKey(page)) {
+				waiting = false;
+				continue;
+			}
+			Long cursor = pageCursors.get(page);
+			if (cursor != null) {
+				loadPage(page, cursor);
+			} else if (!waiting && !loadingPages.contains(page - 1)) {
+				loadPageAt(page);
+			}
+			waiting = true;
+		}
+	}
+
+	/**
+	 * Show an item added at the end of the list.
+	 */
+	void itemAdded(TodoItem item) {
+		itemCount++;
+		int page = (itemCount - 1) / pageSize;
+		List<TodoItem> items = pages.get(page);
+		if (items != null && items.size() < pageSize) {
+			items.add(item);
+		}
+	}
+
+	/**
+	 * Show a newer copy of an item, if its page is loaded.
+	 */
+	void itemUpdated(TodoItem item) {
+		for (List<TodoItem> items : pages.values()) {
+			for (int i = 0; i < items.size(); i++) {
+				if (items.get(i).getId() == item.getId()) {
+					items.set(i, item);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forget the pages from the removed item's page on, since every later
+	 * page now starts one item further down.
+	 */
+	void itemRemoved(long id) {
+		itemCount = Math.max(0, itemCount - 1);
+		int page = pageOf(id);
+		Iterator<Integer> loaded = pages.keySet().iterator();
+		while (loaded.hasNext()) {
+			if (loaded.next() >= page) {
+				loaded.remove();
+			}
+		}
+		pageCursors.tailMap(page, false).clear();
+	}
+
+	/**
+	 * Ignore pages that arrive after the grid moved on to another list.
+	 */
+	void dispose() {
+		disposed = true;
+		pages.clear();
+	}
+
+	/**
+	 * Index of the page an item belongs to, or of an earlier page if the
+	 * start of its page is not known. Items are in ID order, so this is the
+	 * last known page starting before the item.
+	 */
+	private int pageOf(long id) {
+		for (Map.Entry<Integer, Long> cursor : pageCursors.descendingMap().entrySet()) {
+			if (cursor.getValue() < id) {
+				return cursor.getKey();
+			}
+		}
+		return 0;
+	}
+
+	private void loadPage(int page, long afterId) {
+		if (loadingPages.add(page)) {
+			loader.loadPage(afterId, pageSize, new PageCallback(page));
+		}
+	}
+
+	private void loadPageAt(int page) {
+		if (loadingPages.add(page)) {
+			loader.loadPageAt(page * pageSize, pageSize, new PageCallback(page));
+		}
+	}
+
+	private void pageLoaded(int page, TodoItemPage result) {
+		List<TodoItem> items = result.getItems();
+		pages.put(page, items);
+		if (result.getNextCursor() == null) {
+			// The last page tells the exact count
+			itemCount = page * pageSize + items.size();
+		} else {
+			itemCount = Math.max(itemCount, (page + 1) * pageSize + 1);
+		}
+		if (!items.isEmpty() && !pageCursors.containsKey(page)) {
+			// Loaded by position: any ID from the one before its first item will do
+			pageCursors.put(page, items.get(0).getId() - 1);
+		}
+		if (result.getNextCursor() != null && items.size() == pageSize) {
+			pageCursors.put(page + 1, result.getNextCursor());
+		}
+	}
+
+	private class PageCallback implements AsyncCallback<TodoItemPage> {
+		private final int page;
+
+		PageCallback(int page) {
+			this.page = page;
+		}
+
+		@Override
+		public void onSuccess(TodoItemPage result) {
+			if (disposed) {
+				return;
+			}
+			loadingPages.remove(page);
+			pageLoaded(page, result);
+			pageLoadedCallback.run();
+		}
+
+		@Override
+		public void onFailure(Throwable caught) {
+			// Loaded again when the grid next asks for it
+			loadingPages.remove(page);
+			System.err.println("Error loading page of items: " + caught.getMessage());
+			caught.printStackTrace();
+		}
+	}
+}
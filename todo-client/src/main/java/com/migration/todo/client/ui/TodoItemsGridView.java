@@ -1,43 +1,88 @@
 package com.migration.todo.client.ui;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.logical.shared.ResizeEvent;
+import com.google.gwt.event.logical.shared.ResizeHandler;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Window;
+import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.Button;
 import com.google.gwt.user.client.ui.CheckBox;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.FlexTable;
 import com.google.gwt.user.client.ui.FlowPanel;
 import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.ScrollPanel;
 import com.migration.todo.TodoItem;
+import com.migration.todo.TodoItemPage;
 
 /**
  * View for displaying a list of todo items in a grid/table on the right panel.
+ * <p>
+ * Long lists are shown in virtual mode ({@link #setVirtualItems}): only the
+ * rows in view plus a few above and below exist, their widgets are reused
+ * for other items as the grid scrolls, and pages of items are loaded as they
+ * come into view. The DOM and the items kept stay the same size however long
+ * the list is.
+ * </p>
  */
 public class TodoItemsGridView extends Composite {
 
+	// Rows rendered above and below the visible ones in virtual mode
+	private static final int VIRTUAL_OVERSCAN_ROWS = 10;
+	private static final int VIRTUAL_MAX_PAGES = 8;
+	// Used until a rendered row has been measured
+	private static final int DEFAULT_ROW_HEIGHT = 41;
+
 	private final FlowPanel mainPanel;
 	private final FlowPanel headerPanel;  // contains title and add button
 	private final Label titleLabel;
 	private final FlexTable itemsGrid;
+	private final ScrollPanel gridScrollPanel;
+	private final FlowPanel gridCanvas;  // sized to the whole list in virtual mode
 	private final Button addItemButton;
 	private final Label messageLabel;
 	
-	private final Map<Long, Integer> itemRowMap; // Maps item ID to grid row number
+	private final Map<Long, ItemRow> itemRows; // Maps item ID to its row's widgets
 	private long selectedItemId = -1;
 	private ClickHandler itemSelectionHandler;
 	private ItemCompletionHandler itemCompletionHandler;
 
+	// Virtual mode state; virtualItems is null in normal mode
+	private PagedItemSource virtualItems;
+	private final List<ItemRow> windowRows = new ArrayList<ItemRow>();
+	private int rowHeight = DEFAULT_ROW_HEIGHT;
+	private boolean renderScheduled;
+
 	public interface ItemCompletionHandler {
 		void onCompletionChanged(TodoItem item, boolean completed);
 	}
 
+	/**
+	 * Loads pages of items for virtual mode, after a cursor or from a position
+	 * in the list.
+	 */
+	public interface ItemPageLoader {
+		void loadPage(long afterId, int limit, AsyncCallback<TodoItemPage> callback);
+
+		void loadPageAt(int offset, int limit, AsyncCallback<TodoItemPage> callback);
+	}
+
 	public TodoItemsGridView() {
 		mainPanel = new FlowPanel();
 		mainPanel.setStyleName("items-grid-view");
@@ -76,12 +121,30 @@ public class TodoItemsGridView extends Composite {
 		messageLabel = new Label("");
 		messageLabel.setStyleName("todo-message");
 
+		gridCanvas = new FlowPanel();
+		gridCanvas.setStyleName("grid-canvas");
+		gridCanvas.add(itemsGrid);
+		gridScrollPanel = new ScrollPanel(gridCanvas);
+		gridScrollPanel.setStyleName("grid-scroll-panel");
+		gridScrollPanel.addScrollHandler(new ScrollHandler() {
+			@Override
+			public void onScroll(ScrollEvent event) {
+				renderWindow();
+			}
+		});
+		Window.addResizeHandler(new ResizeHandler() {
+			@Override
+			public void onResize(ResizeEvent event) {
+				renderWindow();
+			}
+		});
+
 		// Assemble - header row, grid (fills remaining space), message
 		mainPanel.add(headerPanel);
-		mainPanel.add(itemsGrid);
+		mainPanel.add(gridScrollPanel);
 		mainPanel.add(messageLabel);
 
-		itemRowMap = new HashMap<>();
+		itemRows = new HashMap<>();
 
 		initWidget(mainPanel);
 	}
@@ -94,17 +157,37 @@ public class TodoItemsGridView extends Composite {
 	}
 
 	/**
-	 * Populate the grid with items from a list
+	 * Show the items of a list. Rows are matched to items by ID: rows of
+	 * items that are gone are removed, new items get a row, and existing rows
+	 * only have their changed cells updated, so refreshing a large list
+	 * touches only the rows that changed.
 	 */
 	public void setTodoItems(List<TodoItem> items) {
-		// Clear grid except header
-		while (itemsGrid.getRowCount() > 1) {
-			itemsGrid.removeRow(1);
+		if (virtualItems != null) {
+			removeItemRows();
 		}
-		itemRowMap.clear();
-		selectedItemId = -1;
 		addItemButton.setEnabled(true);
 
+		Map<Long, TodoItem> itemsById = new HashMap<>();
+		if (items != null) {
+			for (TodoItem item : items) {
+				itemsById.put(item.getId(), item);
+			}
+		}
+
+		// Remove the rows of items that are no longer in the list
+		Iterator<Map.Entry<Long, ItemRow>> rows = itemRows.entrySet().iterator();
+		while (rows.hasNext()) {
+			Map.Entry<Long, ItemRow> entry = rows.next();
+			if (!itemsById.containsKey(entry.getKey())) {
+				itemsGrid.removeRow(entry.getValue().getRow());
+				rows.remove();
+			}
+		}
+		if (!itemRows.containsKey(selectedItemId)) {
+			selectedItemId = -1;
+		}
+
 		if (items == null || items.isEmpty()) {
 			messageLabel.setText("No items in this list");
 			return;
@@ -112,192 +195,363 @@ public class TodoItemsGridView extends Composite {
 
 		messageLabel.setText("");
 
-		// Add items to grid
+		// Rows above the current one are already in their final place
 		int row = 1;
-		for (final TodoItem item : items) {
-			CheckBox statusCheckBox = new CheckBox();
-			statusCheckBox.setValue(item.isCompleted());
-			statusCheckBox.setStyleName("grid-cell clickable");
-			statusCheckBox.getElement().getStyle().setProperty("accentColor", "green");
-			statusCheckBox.addValueChangeHandler(new ValueChangeHandler<Boolean>() {
-				@Override
-				public void onValueChange(ValueChangeEvent<Boolean> event) {
-					if (itemCompletionHandler != null) {
-						itemCompletionHandler.onCompletionChanged(item, event.getValue());
-					}
+		for (TodoItem item : items) {
+			ItemRow itemRow = itemRows.get(item.getId());
+			if (itemRow == null) {
+				itemRow = new ItemRow(item);
+				itemRows.put(item.getId(), itemRow);
+				insertItemRow(row, itemRow);
+			} else {
+				itemRow.update(item);
+				int currentRow = itemRow.getRow();
+				if (currentRow != row) {
+					// Moved further down the list: take the widgets to their new row
+					itemsGrid.removeRow(currentRow);
+					insertItemRow(row, itemRow);
 				}
-			});
-			Label titleLabel = new Label(item.getTitle());
-			titleLabel.setStyleName("grid-cell clickable");
-			String description = item.getDescription();
-			if (description == null || description.trim().isEmpty()) {
-				description = "NA";
 			}
-			Label descLabel = new Label(description);
-			descLabel.setStyleName("grid-cell clickable");
-			
-			final int itemRow = row;
-			final long itemId = item.getId();
-			
-			// Add click handler to all three cells
-			ClickHandler rowClickHandler = new ClickHandler() {
-				@Override
-				public void onClick(ClickEvent event) {
-					selectItem(itemId, itemRow);
+			row++;
+		}
+	}
+
+	/**
+	 * Add a new item to the end of the grid
+	 */
+	public void addTodoItem(TodoItem item) {
+		messageLabel.setText("");
+		if (virtualItems != null) {
+			virtualItems.itemAdded(item);
+			renderWindow();
+			return;
+		}
+		ItemRow itemRow = itemRows.get(item.getId());
+		if (itemRow != null) {
+			itemRow.update(item);
+		} else {
+			itemRow = new ItemRow(item);
+			itemRows.put(item.getId(), itemRow);
+			insertItemRow(itemsGrid.getRowCount(), itemRow);
+		}
+	}
+
+	/**
+	 * Update an item in the grid
+	 */
+	public void updateTodoItem(TodoItem item) {
+		if (virtualItems != null) {
+			virtualItems.itemUpdated(item);
+			for (ItemRow windowRow : windowRows) {
+				if (windowRow.item != null && windowRow.item.getId() == item.getId()) {
+					windowRow.update(item);
 				}
-			};
-			
-			// statusCheckBox.addClickHandler(rowClickHandler); // CheckBox handles its own clicks
-			titleLabel.addClickHandler(rowClickHandler);
-			descLabel.addClickHandler(rowClickHandler);
+			}
+			return;
+		}
+		ItemRow itemRow = itemRows.get(item.getId());
+		if (itemRow != null) {
+			itemRow.update(item);
+		}
+	}
 
-			itemsGrid.setWidget(row, 0, statusCheckBox);
-			itemsGrid.setWidget(row, 1, titleLabel);
-			itemsGrid.setWidget(row, 2, descLabel);
+	/**
+	 * Remove an item from the grid
+	 */
+	public void removeTodoItem(long id) {
+		if (virtualItems != null) {
+			virtualItems.itemRemoved(id);
+			if (selectedItemId == id) {
+				selectedItemId = -1;
+			}
+			renderWindow();
+			return;
+		}
+		ItemRow itemRow = itemRows.remove(id);
+		if (itemRow != null) {
+			itemsGrid.removeRow(itemRow.getRow());
+			if (selectedItemId == id) {
+				selectedItemId = -1;
+			}
 			
-			itemsGrid.getRowFormatter().setStyleName(row, "grid-row");
+			if (itemsGrid.getRowCount() <= 1) {
+				messageLabel.setText("No items in this list");
+			}
+		}
+	}
 
-			itemRowMap.put(itemId, row);
-			row++;
+	/**
+	 * Select an item by clicking on it
+	 */
+	private void selectItem(long itemId) {
+		if (virtualItems != null) {
+			selectedItemId = itemId;
+			for (int i = 0; i < windowRows.size(); i++) {
+				setRowSelected(i + 1, windowRows.get(i));
+			}
+			if (itemSelectionHandler != null) {
+				itemSelectionHandler.onClick(null);
+			}
+			return;
+		}
+
+		// Remove previous selection styling
+		ItemRow previous = itemRows.get(selectedItemId);
+		if (previous != null) {
+			itemsGrid.getRowFormatter().removeStyleName(previous.getRow(), "grid-row-selected");
+		}
+
+		// Apply selection styling
+		selectedItemId = itemId;
+		ItemRow selected = itemRows.get(itemId);
+		if (selected != null) {
+			itemsGrid.getRowFormatter().addStyleName(selected.getRow(), "grid-row-selected");
+		}
+
+		// Fire selection handler
+		if (itemSelectionHandler != null) {
+			itemSelectionHandler.onClick(null);
 		}
 	}
 
 	/**
-	 * Add a new item to the grid
+	 * Insert a row for an item before the given row.
 	 */
-	public void addTodoItem(TodoItem item) {
-		int row = itemsGrid.getRowCount();
-		CheckBox statusCheckBox = new CheckBox();
-		statusCheckBox.setValue(item.isCompleted());
-		statusCheckBox.setStyleName("grid-cell clickable");
-		statusCheckBox.getElement().getStyle().setProperty("accentColor", "green");
-		statusCheckBox.addValueChangeHandler(new ValueChangeHandler<Boolean>() {
+	private void insertItemRow(int row, ItemRow itemRow) {
+		itemsGrid.insertRow(row);
+		itemsGrid.setWidget(row, 0, itemRow.statusCheckBox);
+		itemsGrid.setWidget(row, 1, itemRow.titleLabel);
+		itemsGrid.setWidget(row, 2, itemRow.descLabel);
+		
+		itemsGrid.getRowFormatter().setStyleName(row, "grid-row");
+		setRowSelected(row, itemRow);
+	}
+
+	private void setRowSelected(int row, ItemRow itemRow) {
+		if (itemRow.item != null && itemRow.item.getId() == selectedItemId) {
+			itemsGrid.getRowFormatter().addStyleName(row, "grid-row-selected");
+		} else {
+			itemsGrid.getRowFormatter().removeStyleName(row, "grid-row-selected");
+		}
+	}
+
+	/**
+	 * Remove all item rows, keeping the header, and leave virtual mode.
+	 */
+	private void removeItemRows() {
+		for (int row = itemsGrid.getRowCount() - 1; row > 0; row--) {
+			itemsGrid.removeRow(row);
+		}
+		itemRows.clear();
+		selectedItemId = -1;
+
+		if (virtualItems != null) {
+			virtualItems.dispose();
+			virtualItems = null;
+			windowRows.clear();
+			itemsGrid.removeStyleName("items-grid-virtual");
+			itemsGrid.getElement().getStyle().clearTop();
+			gridCanvas.getElement().getStyle().clearHeight();
+		}
+	}
+
+	/**
+	 * Show a long list in virtual mode. Only the rows in view are rendered,
+	 * and pages are loaded through the loader as they scroll into view.
+	 *
+	 * @param itemCount the list's item count, corrected once the last page is loaded
+	 * @param pageSize number of items the loader is asked for at a time
+	 * @param firstPage the first page if already loaded, or null
+	 */
+	public void setVirtualItems(int itemCount, int pageSize, TodoItemPage firstPage, ItemPageLoader loader) {
+		removeItemRows();
+		addItemButton.setEnabled(true);
+		messageLabel.setText(itemCount == 0 ? "No items in this list" : "");
+
+		virtualItems = new PagedItemSource(itemCount, pageSize, VIRTUAL_MAX_PAGES, loader, new Runnable() {
 			@Override
-			public void onValueChange(ValueChangeEvent<Boolean> event) {
-				if (itemCompletionHandler != null) {
-					itemCompletionHandler.onCompletionChanged(item, event.getValue());
-				}
+			public void run() {
+				renderWindow();
 			}
 		});
-		Label titleLabel = new Label(item.getTitle());
-		titleLabel.setStyleName("grid-cell clickable");
-		String description = item.getDescription();
-		if (description == null || description.trim().isEmpty()) {
-			description = "NA";
+		if (firstPage != null) {
+			virtualItems.seed(firstPage);
 		}
-		Label descLabel = new Label(description);
-		descLabel.setStyleName("grid-cell clickable");
-		
-		final int itemRow = row;
-		final long itemId = item.getId();
-		
-		// Add click handler to all three cells
-		ClickHandler rowClickHandler = new ClickHandler() {
+		itemsGrid.addStyleName("items-grid-virtual");
+		gridScrollPanel.setVerticalScrollPosition(0);
+		renderWindow();
+		// Measure again once the browser has laid out the first rows
+		scheduleRenderWindow();
+	}
+
+	private void scheduleRenderWindow() {
+		if (renderScheduled) {
+			return;
+		}
+		renderScheduled = true;
+		Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
 			@Override
-			public void onClick(ClickEvent event) {
-				selectItem(itemId, itemRow);
+			public void execute() {
+				renderScheduled = false;
+				renderWindow();
 			}
-		};
-		
-		titleLabel.addClickHandler(rowClickHandler);
-		descLabel.addClickHandler(rowClickHandler);
+		});
+	}
 
-		itemsGrid.setWidget(row, 0, statusCheckBox);
-		itemsGrid.setWidget(row, 1, titleLabel);
-		itemsGrid.setWidget(row, 2, descLabel);
-		
-		itemsGrid.getRowFormatter().setStyleName(row, "grid-row");
+	/**
+	 * Render the rows in view plus the overscan rows in virtual mode, reusing
+	 * the existing row widgets for whichever items are now in the window.
+	 */
+	private void renderWindow() {
+		if (virtualItems == null) {
+			return;
+		}
+		int itemCount = virtualItems.getItemCount();
+		int headerHeight = itemsGrid.getRowFormatter().getElement(0).getOffsetHeight();
+		int viewportHeight = gridScrollPanel.getOffsetHeight();
+		if (viewportHeight <= 0) {
+			viewportHeight = 20 * rowHeight;
+		}
+		int scrollTop = Math.max(0, gridScrollPanel.getVerticalScrollPosition() - headerHeight);
+
+		int first = Math.max(0, scrollTop / rowHeight - VIRTUAL_OVERSCAN_ROWS);
+		int last = Math.min(itemCount, (scrollTop + viewportHeight) / rowHeight + 1 + VIRTUAL_OVERSCAN_ROWS);
+		first = Math.min(first, last);
+		virtualItems.ensureLoaded(first, last);
+
+		// Grow or shrink the row pool to the window size
+		while (windowRows.size() < last - first) {
+			ItemRow itemRow = new ItemRow(null);
+			windowRows.add(itemRow);
+			insertItemRow(itemsGrid.getRowCount(), itemRow);
+		}
+		while (windowRows.size() > last - first) {
+			windowRows.remove(windowRows.size() - 1);
+			itemsGrid.removeRow(itemsGrid.getRowCount() - 1);
+		}
 
-		itemRowMap.put(itemId, row);
-		messageLabel.setText("");
+		for (int i = 0; i < windowRows.size(); i++) {
+			ItemRow itemRow = windowRows.get(i);
+			itemRow.update(virtualItems.getItem(first + i));
+			setRowSelected(i + 1, itemRow);
+		}
+
+		gridCanvas.getElement().getStyle().setHeight(headerHeight + itemCount * rowHeight, Unit.PX);
+		itemsGrid.getElement().getStyle().setTop(first * rowHeight, Unit.PX);
+
+		if (!windowRows.isEmpty()) {
+			int measured = itemsGrid.getRowFormatter().getElement(1).getOffsetHeight();
+			if (measured > 0 && measured != rowHeight) {
+				rowHeight = measured;
+				scheduleRenderWindow();
+			}
+		}
 	}
 
 	/**
-	 * Update an item in the grid
+	 * Get a shown item by its ID, or null when it is not in the grid (or,
+	 * in virtual mode, not in the rendered window).
 	 */
-	public void updateTodoItem(TodoItem item) {
-		Integer row = itemRowMap.get(item.getId());
-		if (row != null) {
-			CheckBox statusCheckBox = new CheckBox();
-			statusCheckBox.setValue(item.isCompleted());
+	public TodoItem getTodoItem(long id) {
+		if (virtualItems != null) {
+			for (ItemRow windowRow : windowRows) {
+				if (windowRow.item != null && windowRow.item.getId() == id) {
+					return windowRow.item;
+				}
+			}
+			return null;
+		}
+		ItemRow itemRow = itemRows.get(id);
+		return itemRow != null ? itemRow.item : null;
+	}
+
+	private static String descriptionText(TodoItem item) {
+		String description = item.getDescription();
+		if (description == null || description.trim().isEmpty()) {
+			description = "NA";
+		}
+		return description;
+	}
+
+	private static String titleText(TodoItem item) {
+		return item.getTitle() == null ? "" : item.getTitle();
+	}
+
+	/**
+	 * The widgets of one item's row. The row number is read from the table
+	 * when needed, so removing a row does not renumber the others. In virtual
+	 * mode the item is null while its page is loading.
+	 */
+	private class ItemRow {
+		private TodoItem item;
+		private final CheckBox statusCheckBox;
+		private final Label titleLabel;
+		private final Label descLabel;
+
+		ItemRow(TodoItem todoItem) {
+			statusCheckBox = new CheckBox();
 			statusCheckBox.setStyleName("grid-cell clickable");
 			statusCheckBox.getElement().getStyle().setProperty("accentColor", "green");
 			statusCheckBox.addValueChangeHandler(new ValueChangeHandler<Boolean>() {
 				@Override
 				public void onValueChange(ValueChangeEvent<Boolean> event) {
-					if (itemCompletionHandler != null) {
+					if (item != null && itemCompletionHandler != null) {
 						itemCompletionHandler.onCompletionChanged(item, event.getValue());
 					}
 				}
 			});
-			Label titleLabel = new Label(item.getTitle());
+			titleLabel = new Label();
 			titleLabel.setStyleName("grid-cell clickable");
-			String description = item.getDescription();
-			if (description == null || description.trim().isEmpty()) {
-				description = "NA";
-			}
-			Label descLabel = new Label(description);
+			descLabel = new Label();
 			descLabel.setStyleName("grid-cell clickable");
-			
-			final int itemRow = row;
-			final long itemId = item.getId();
-			
-			// Add click handler to all three cells
+
+			// Add click handler to the title and description cells
 			ClickHandler rowClickHandler = new ClickHandler() {
 				@Override
 				public void onClick(ClickEvent event) {
-					selectItem(itemId, itemRow);
+					if (item != null) {
+						selectItem(item.getId());
+					}
 				}
 			};
-			
 			titleLabel.addClickHandler(rowClickHandler);
 			descLabel.addClickHandler(rowClickHandler);
 
-			itemsGrid.setWidget(row, 0, statusCheckBox);
-			itemsGrid.setWidget(row, 1, titleLabel);
-			itemsGrid.setWidget(row, 2, descLabel);
+			update(todoItem);
 		}
-	}
 
-	/**
-	 * Remove an item from the grid
-	 */
-	public void removeTodoItem(long id) {
-		Integer row = itemRowMap.get(id);
-		if (row != null) {
-			itemsGrid.removeRow((int) row);
-			itemRowMap.remove(id);
-			
-			// Update row mappings for items after the removed one
-			for (Long itemId : itemRowMap.keySet()) {
-				int currentRow = itemRowMap.get(itemId);
-				if (currentRow > row) {
-					itemRowMap.put(itemId, currentRow - 1);
-				}
+		/**
+		 * Show a newer copy of the item, touching only the cells that changed.
+		 */
+		void update(TodoItem todoItem) {
+			this.item = todoItem;
+			if (item == null) {
+				statusCheckBox.setValue(false);
+				statusCheckBox.setEnabled(false);
+				titleLabel.setText("Loading...");
+				descLabel.setText("");
+				return;
 			}
-			
-			if (itemsGrid.getRowCount() <= 1) {
-				messageLabel.setText("No items in this list");
+			if (!statusCheckBox.isEnabled()) {
+				statusCheckBox.setEnabled(true);
+			}
+			if (statusCheckBox.getValue() != item.isCompleted()) {
+				statusCheckBox.setValue(item.isCompleted());
+			}
+			String title = titleText(item);
+			if (!title.equals(titleLabel.getText())) {
+				titleLabel.setText(title);
+			}
+			String description = descriptionText(item);
+			if (!description.equals(descLabel.getText())) {
+				descLabel.setText(description);
 			}
 		}
-	}
-
-	/**
-	 * Select an item by clicking on it
-	 */
-	private void selectItem(long itemId, int row) {
-		// Remove previous selection styling
-		for (Integer prevRow : itemRowMap.values()) {
-			itemsGrid.getRowFormatter().removeStyleName(prevRow, "grid-row-selected");
-		}
-
-		// Apply selection styling
-		selectedItemId = itemId;
-		itemsGrid.getRowFormatter().addStyleName(row, "grid-row-selected");
 
-		// Fire selection handler
-		if (itemSelectionHandler != null) {
-			itemSelectionHandler.onClick(null);
+		int getRow() {
+			// The cell's parent row knows its own index in the table body
+			Element cell = titleLabel.getElement().getParentElement();
+			return TableRowElement.as(cell.getParentElement()).getSectionRowIndex();
 		}
 	}
 
@@ -318,11 +572,7 @@ public class TodoItemsGridView extends Composite {
 	}
 
 	public void clearItems() {
-		while (itemsGrid.getRowCount() > 1) {
-			itemsGrid.removeRow(1);
-		}
-		itemRowMap.clear();
-		selectedItemId = -1;
+		removeItemRows();
 		messageLabel.setText("");
 	}
 
@@ -335,11 +585,7 @@ public class TodoItemsGridView extends Composite {
 	}
 
 	public void clear() {
-		while (itemsGrid.getRowCount() > 1) {
-			itemsGrid.removeRow(1);
-		}
-		itemRowMap.clear();
-		selectedItemId = -1;
+		removeItemRows();
 		titleLabel.setText("Select a list to view items");
 		messageLabel.setText("");
 		addItemButton.setEnabled(false);
@@ -127,6 +127,18 @@ public class TodoListView extends Composite {
 	}
 
 	private void selectList(long id) {
+		setSelectedListId(id);
+		
+		// Fire selection handler
+		if (listSelectionHandler != null) {
+			listSelectionHandler.onChange(null);
+		}
+	}
+
+	/**
+	 * Highlight a list as selected without firing the selection handler.
+	 */
+	public void setSelectedListId(long id) {
 		// Clear previous selection styling
 		for (Label label : listItemWidgets.values()) {
 			label.removeStyleName("list-item-selected");
@@ -139,11 +151,6 @@ public class TodoListView extends Composite {
 		}
 		
 		selectedListId = id;
-		
-		// Fire selection handler
-		if (listSelectionHandler != null) {
-			listSelectionHandler.onChange(null);
-		}
 	}
 
 	public long getSelectedListId() {
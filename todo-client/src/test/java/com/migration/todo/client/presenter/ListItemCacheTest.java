@@ -0,0 +1,138 @@
+package com.migration.todo.client.presenter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoItemChanges;
+
+class ListItemCacheTest {
+
+	@Test
+	void fullSyncReplacesItemsInIdOrder() {
+		ListItemCache.CachedList entry = entry(0, item(9, "stale"));
+
+		assertTrue(entry.apply(changes(5, Arrays.asList(item(3, "c"), item(1, "a")))));
+
+		assertEquals(Arrays.asList(1L, 3L), ids(entry));
+		assertEquals(5, entry.getVersion());
+	}
+
+	@Test
+	void deltaPutsAndRemovesItemsInIdOrder() {
+		ListItemCache.CachedList entry = entry(5, item(1, "a"), item(3, "c"), item(5, "e"));
+
+		TodoItemChanges changes = changes(7, Arrays.asList(item(4, "d"), item(3, "C")));
+		changes.setDeletedIds(Arrays.asList(5L, 9L));
+		assertTrue(entry.apply(changes));
+
+		assertEquals(Arrays.asList(1L, 3L, 4L), ids(entry));
+		assertEquals("C", entry.getItems().get(1).getTitle());
+		assertEquals(7, entry.getVersion());
+	}
+
+	@Test
+	void deltaWithoutChangesOnlyMovesTheVersion() {
+		ListItemCache.CachedList entry = entry(5, item(1, "a"));
+
+		TodoItemChanges changes = changes(8, Collections.<TodoItem>emptyList());
+		changes.setDeletedIds(Arrays.asList(9L));
+		assertFalse(entry.apply(changes));
+
+		assertEquals(8, entry.getVersion());
+		assertEquals(Arrays.asList(1L), ids(entry));
+	}
+
+	@Test
+	void resetLeadsToAFullSync() {
+		ListItemCache.CachedList entry = entry(5, item(1, "a"), item(2, "b"));
+		TodoItemChanges reset = changes(0, Collections.<TodoItem>emptyList());
+		reset.setReset(true);
+
+		assertFalse(entry.apply(reset));
+		assertEquals(0, entry.getVersion());
+
+		// Item 2 was deleted while the client was away
+		assertTrue(entry.apply(changes(20, Arrays.asList(item(1, "a")))));
+		assertEquals(Arrays.asList(1L), ids(entry));
+	}
+
+	@Test
+	void continuesAFullSyncThatHasMore() {
+		ListItemCache.CachedList entry = entry(0);
+
+		TodoItemChanges first = changes(4, Arrays.asList(item(2, "b"), item(1, "a")));
+		first.setFullSync(true);
+		first.setHasMore(true);
+		entry.apply(first);
+		assertTrue(entry.isFullSync());
+
+		TodoItemChanges last = changes(6, Arrays.asList(item(3, "c")));
+		last.setFullSync(true);
+		entry.apply(last);
+
+		assertFalse(entry.isFullSync());
+		assertEquals(Arrays.asList(1L, 2L, 3L), ids(entry));
+		assertEquals(6, entry.getVersion());
+	}
+
+	@Test
+	void putAndRemoveKeepIdOrder() {
+		List<TodoItem> items = new ArrayList<TodoItem>(Arrays.asList(item(1, "a"), item(5, "e")));
+
+		assertTrue(ListItemCache.putItem(items, item(3, "c")));
+		assertFalse(ListItemCache.putItem(items, item(5, "E")));
+		assertTrue(ListItemCache.removeItem(items, 1));
+		assertFalse(ListItemCache.removeItem(items, 1));
+
+		assertEquals(Arrays.asList(3L, 5L), ids(items));
+		assertEquals("E", items.get(1).getTitle());
+	}
+
+	@Test
+	void dropsLeastRecentlyUsedList() {
+		ListItemCache cache = new ListItemCache(2);
+		cache.put(1, entry(1));
+		cache.put(2, entry(1));
+		cache.get(1);
+		cache.put(3, entry(1));
+
+		assertNotNull(cache.get(1));
+		assertNull(cache.get(2));
+		assertNotNull(cache.get(3));
+	}
+
+	private static ListItemCache.CachedList entry(long version, TodoItem... items) {
+		return new ListItemCache.CachedList(new ArrayList<TodoItem>(Arrays.asList(items)), version);
+	}
+
+	private static TodoItemChanges changes(long version, List<TodoItem> items) {
+		return new TodoItemChanges(new ArrayList<TodoItem>(items), new ArrayList<Long>(), version, false);
+	}
+
+	private static TodoItem item(long id, String title) {
+		return new TodoItem(id, 7, title, "", false);
+	}
+
+	private static List<Long> ids(ListItemCache.CachedList entry) {
+		return ids(entry.getItems());
+	}
+
+	private static List<Long> ids(List<TodoItem> items) {
+		List<Long> ids = new ArrayList<Long>();
+		for (TodoItem item : items) {
+			ids.add(item.getId());
+		}
+		return ids;
+	}
+}
@@ -1,5 +1,6 @@
 package com.migration.todo;
 
+import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 
@@ -11,12 +12,16 @@ public class AppInitializationListener implements ServletContextListener {
 	@Override
 	public void contextInitialized(ServletContextEvent sce) {
 		System.out.println("Initializing Todo application...");
-		TodoDatabase.initializeDatabase();
+		ServletContext context = sce.getServletContext();
+		DatabaseSettings settings = DatabaseSettings.load(context::getInitParameter);
+		System.out.println("Using " + settings);
+		TodoDatabase.initializeDatabase(settings);
 		System.out.println("Todo application initialized successfully");
 	}
 
 	@Override
 	public void contextDestroyed(ServletContextEvent sce) {
 		System.out.println("Todo application shutting down...");
+		TodoDatabase.shutdown();
 	}
 }
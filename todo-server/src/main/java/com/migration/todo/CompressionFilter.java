@@ -0,0 +1,697 @@
+package com.migration.todo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Gzip compression of REST responses.
+ * <p>
+ * A response is compressed when the client accepts gzip, its content type is
+ * one of the configured types and its body reaches the minimum size. Smaller
+ * bodies are sent as they are, with a Content-Length. Other types, such as the
+ * text/event-stream of the change feed, pass straight through. Compressed
+ * bodies of responses with a strong ETag are kept in a small LRU cache, so an
+ * unchanged collection is only compressed once.
+ * </p>
+ * <p>
+ * For clients that accept gzip, ETags are sent weak (W/"..."), since the
+ * bytes differ from the identity encoding's. If-None-Match still matches,
+ * as conditional GETs compare ETags weakly. Non-blocking writes (a
+ * WriteListener) are sent uncompressed straight to the container's stream.
+ * </p>
+ * <p>
+ * This is a servlet filter rather than Jetty's GzipHandler or
+ * CompressionHandler because those are server-level handlers: they would have
+ * to be configured in the Jetty server rather than in web.xml. The WAR only
+ * relies on the Servlet API, and jetty:run is just the development server.
+ * As a filter, compression applies to /api/* only and is tuned by the same
+ * context settings as the rest of the application. Its counters go through
+ * TodoMetrics. Jetty's handlers also compress every response anew, where the
+ * filter reuses the compressed body of an unchanged collection.
+ * </p>
+ * <p>
+ * Map the filter for the REQUEST and ASYNC dispatcher types: handlers that
+ * return a DeferredResult write their body on the async dispatch. Each init
+ * parameter can be overridden with a system property of the same name.
+ * </p>
+ */
+public class CompressionFilter implements Filter {
+	public static final String MIN_SIZE = "todo.compression.minSize";
+	public static final String LEVEL = "todo.compression.level";
+	public static final String MIME_TYPES = "todo.compression.mimeTypes";
+	public static final String CACHE_ENTRIES = "todo.compression.cacheEntries";
+	public static final String CACHE_MAX_ENTRY_BYTES = "todo.compression.cacheMaxEntryBytes";
+
+	private static final String RESPONSE_ATTRIBUTE = CompressionFilter.class.getName() + ".response";
+
+	private int minSize = 1024;
+	private int level = 6;
+	private Set<String> mimeTypes = new HashSet<>(Arrays.asList("application/json", "application/x-ndjson",
+			"application/cbor", "application/x-jackson-smile", "text/plain"));
+	private int cacheEntries = 64;
+	private int cacheMaxEntryBytes = 1048576;
+	private Map<String, byte[]> cache;
+
+	// Metrics
+	private final AtomicLong compressedCount = new AtomicLong();
+	private final AtomicLong bytesIn = new AtomicLong();
+	private final AtomicLong bytesOut = new AtomicLong();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+
+	@Override
+	public void init(FilterConfig config) throws ServletException {
+		minSize = Integer.parseInt(value(config, MIN_SIZE, String.valueOf(minSize)));
+		level = Integer.parseInt(value(config, LEVEL, String.valueOf(level)));
+		String types = value(config, MIME_TYPES, null);
+		if (types != null) {
+			mimeTypes = new HashSet<>();
+			for (String type : types.split(",")) {
+				if (!type.isBlank()) {
+					mimeTypes.add(type.trim().toLowerCase(Locale.ROOT));
+				}
+			}
+		}
+		cacheEntries = Integer.parseInt(value(config, CACHE_ENTRIES, String.valueOf(cacheEntries)));
+		cacheMaxEntryBytes = Integer.parseInt(value(config, CACHE_MAX_ENTRY_BYTES, String.valueOf(cacheMaxEntryBytes)));
+		if (level < 1 || level > 9) {
+			throw new ServletException(LEVEL + " must be between 1 and 9");
+		}
+		int maxEntries = cacheEntries;
+		cache = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		TodoMetrics.bind(this);
+	}
+
+	private static String value(FilterConfig config, String name, String defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null) {
+			value = config.getInitParameter(name);
+		}
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+	}
+
+	@Override
+	public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+			throws IOException, ServletException {
+		if (!(servletRequest instanceof HttpServletRequest) || !(servletResponse instanceof HttpServletResponse)) {
+			chain.doFilter(servletRequest, servletResponse);
+			return;
+		}
+		HttpServletRequest request = (HttpServletRequest) servletRequest;
+
+		// On the async dispatch, keep writing through the wrapper of the initial request
+		CompressingResponse response = (CompressingResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+		if (response == null) {
+			HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+			if (request.getDispatcherType() == DispatcherType.REQUEST) {
+				httpResponse.addHeader("Vary", "Accept-Encoding");
+			}
+			if (!acceptsGzip(request)) {
+				chain.doFilter(request, httpResponse);
+				return;
+			}
+			response = new CompressingResponse(request, httpResponse);
+			request.setAttribute(RESPONSE_ATTRIBUTE, response);
+		}
+
+		boolean failed = true;
+		try {
+			chain.doFilter(request, response);
+			failed = false;
+		} finally {
+			if (!request.isAsyncStarted()) {
+				if (failed) {
+					// Leave a body that was not sent yet to the container's error handling
+					response.discard();
+				}
+				response.finish();
+			}
+		}
+	}
+
+	/**
+	 * Whether Accept-Encoding lists gzip (or *) without a zero quality.
+	 */
+	static boolean acceptsGzip(HttpServletRequest request) {
+		String header = request.getHeader("Accept-Encoding");
+		if (header == null) {
+			return false;
+		}
+		boolean wildcard = false;
+		for (String part : header.split(",")) {
+			String[] fields = part.split(";");
+			String coding = fields[0].trim().toLowerCase(Locale.ROOT);
+			boolean accepted = true;
+			for (int i = 1; i < fields.length; i++) {
+				String parameter = fields[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						accepted = false;
+					}
+				}
+			}
+			if (coding.equals("gzip") || coding.equals("x-gzip")) {
+				return accepted;
+			}
+			if (coding.equals("*")) {
+				wildcard = accepted;
+			}
+		}
+		return wildcard;
+	}
+
+	private boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		int semicolon = contentType.indexOf(';');
+		String mimeType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim();
+		return mimeTypes.contains(mimeType.toLowerCase(Locale.ROOT));
+	}
+
+	private byte[] getCached(String key) {
+		synchronized (cache) {
+			return cache.get(key);
+		}
+	}
+
+	private void putCached(String key, byte[] compressed) {
+		synchronized (cache) {
+			cache.put(key, compressed);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (cache != null) {
+			synchronized (cache) {
+				cache.clear();
+			}
+		}
+	}
+
+	// ==================== Metrics ====================
+
+	public long getCompressedCount() {
+		return compressedCount.get();
+	}
+
+	public long getBytesIn() {
+		return bytesIn.get();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.get();
+	}
+
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionFilter{" +
+				"minSize=" + minSize +
+				", level=" + level +
+				", compressed=" + compressedCount.get() +
+				", bytesIn=" + bytesIn.get() +
+				", bytesOut=" + bytesOut.get() +
+				", cacheHits=" + cacheHitCount.get() +
+				'}';
+	}
+
+	/**
+	 * Buffers the start of the body until it is known whether to compress it.
+	 */
+	private class CompressingResponse extends HttpServletResponseWrapper {
+		private final HttpServletRequest request;
+		private CompressingStream stream;
+		private PrintWriter writer;
+		private long contentLength = -1;
+		// The application's ETag before it was weakened; used as the cache key
+		private String strongETag;
+
+		CompressingResponse(HttpServletRequest request, HttpServletResponse response) {
+			super(response);
+			this.request = request;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (writer != null) {
+				throw new IllegalStateException("getWriter() has already been called");
+			}
+			return stream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				if (stream != null) {
+					throw new IllegalStateException("getOutputStream() has already been called");
+				}
+				writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		private CompressingStream stream() {
+			if (stream == null) {
+				stream = new CompressingStream(this);
+			}
+			return stream;
+		}
+
+		@Override
+		public void setContentLength(int length) {
+			setContentLengthLong(length);
+		}
+
+		@Override
+		public void setContentLengthLong(long length) {
+			// Only known to be right once it is decided the body is sent as is
+			if (stream != null && stream.isPassthrough()) {
+				super.setContentLengthLong(length);
+			} else {
+				contentLength = length;
+			}
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else if ("ETag".equalsIgnoreCase(name)) {
+				super.setHeader(name, weaken(value));
+			} else {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if ("Content-Length".equalsIgnoreCase(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else if ("ETag".equalsIgnoreCase(name)) {
+				super.setHeader(name, weaken(value));
+			} else {
+				super.addHeader(name, value);
+			}
+		}
+
+		private String weaken(String eTag) {
+			if (eTag == null || eTag.startsWith("W/")) {
+				strongETag = null;
+				return eTag;
+			}
+			strongETag = eTag;
+			return "W/" + eTag;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			} else if (stream != null) {
+				stream.flush();
+			} else {
+				super.flushBuffer();
+			}
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			if (stream != null) {
+				stream.resetBuffer();
+			}
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			contentLength = -1;
+			if (stream != null) {
+				stream.resetBuffer();
+			}
+		}
+
+		@Override
+		public void sendError(int status) throws IOException {
+			discard();
+			super.sendError(status);
+		}
+
+		@Override
+		public void sendError(int status, String message) throws IOException {
+			discard();
+			super.sendError(status, message);
+		}
+
+		void discard() {
+			if (stream != null) {
+				stream.discard();
+			}
+		}
+
+		/**
+		 * Write whatever is still buffered and end the compressed stream.
+		 */
+		void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			if (stream != null) {
+				stream.finish();
+			} else if (contentLength >= 0) {
+				super.setContentLengthLong(contentLength);
+			}
+		}
+
+		/**
+		 * Key of the compressed body in the cache, or null if it must not be cached.
+		 */
+		String cacheKey() {
+			if (cacheEntries < 1 || getStatus() != HttpServletResponse.SC_OK || strongETag == null) {
+				return null;
+			}
+			String query = request.getQueryString();
+			return strongETag + ' ' + getContentType() + ' ' + request.getRequestURI() + (query != null ? "?" + query : "");
+		}
+	}
+
+	/**
+	 * Whether responses with this status never carry a body (1xx, 204 and 304).
+	 */
+	static boolean hasNoBody(int status) {
+		return status < HttpServletResponse.SC_OK || status == HttpServletResponse.SC_NO_CONTENT
+				|| status == HttpServletResponse.SC_NOT_MODIFIED;
+	}
+
+	private class CompressingStream extends ServletOutputStream {
+		private static final int BUFFERING = 0;
+		private static final int PASSTHROUGH = 1;
+		private static final int COMPRESSING = 2;
+		private static final int CACHED = 3;
+		private static final int DISCARDED = 4;
+
+		private final CompressingResponse response;
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private int state = BUFFERING;
+		private ServletOutputStream out;
+		private LevelGzipOutputStream gzip;
+		private CountingOutputStream counter;
+		private String cacheKey;
+		private ByteArrayOutputStream cacheCopy;
+		private byte[] cached;
+		private long uncompressedBytes;
+		private boolean finished;
+
+		CompressingStream(CompressingResponse response) {
+			this.response = response;
+		}
+
+		boolean isPassthrough() {
+			return state == PASSTHROUGH;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (state == BUFFERING) {
+				if (buffer.size() + length < minSize) {
+					buffer.write(bytes, offset, length);
+					return;
+				}
+				decide(true);
+			}
+			switch (state) {
+				case PASSTHROUGH:
+					out.write(bytes, offset, length);
+					break;
+				case COMPRESSING:
+					uncompressedBytes += length;
+					gzip.write(bytes, offset, length);
+					break;
+				default:
+					// The cached copy of this body is sent on finish
+					break;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (state == BUFFERING) {
+				if (isCompressible(response.getContentType())) {
+					// Hold on to a small body until it reaches the minimum size or ends
+					return;
+				}
+				decide(false);
+			}
+			if (state == PASSTHROUGH || state == COMPRESSING) {
+				(gzip != null ? gzip : out).flush();
+			}
+		}
+
+		/**
+		 * Choose how to send the body and write out the buffered start of it.
+		 */
+		private void decide(boolean largeEnough) throws IOException {
+			HttpServletResponse target = (HttpServletResponse) response.getResponse();
+			int status = response.getStatus();
+			boolean compress = largeEnough && isCompressible(response.getContentType())
+					&& !response.containsHeader("Content-Encoding")
+					&& !hasNoBody(status)
+					&& status != HttpServletResponse.SC_PARTIAL_CONTENT;
+			if (!compress) {
+				state = PASSTHROUGH;
+				if (response.contentLength >= 0) {
+					target.setContentLengthLong(response.contentLength);
+				}
+				out = target.getOutputStream();
+				buffer.writeTo(out);
+				buffer.reset();
+				return;
+			}
+
+			target.setHeader("Content-Encoding", "gzip");
+			cacheKey = response.cacheKey();
+			cached = cacheKey != null ? getCached(cacheKey) : null;
+			if (cached != null) {
+				state = CACHED;
+				buffer.reset();
+				return;
+			}
+
+			state = COMPRESSING;
+			out = target.getOutputStream();
+			counter = new CountingOutputStream(out);
+			OutputStream destination = counter;
+			if (cacheKey != null) {
+				cacheCopy = new ByteArrayOutputStream();
+				destination = new TeeOutputStream(counter, cacheCopy, cacheMaxEntryBytes);
+			}
+			gzip = new LevelGzipOutputStream(destination, level);
+			uncompressedBytes = buffer.size();
+			buffer.writeTo(gzip);
+			buffer.reset();
+		}
+
+		void resetBuffer() {
+			if (state == BUFFERING) {
+				buffer.reset();
+			}
+		}
+
+		void discard() {
+			if (state == BUFFERING) {
+				buffer.reset();
+				state = DISCARDED;
+			}
+		}
+
+		/**
+		 * Switch to non-blocking writes. The body is then sent uncompressed,
+		 * since gzip holds data back and could not honour isReady().
+		 */
+		void setNonBlocking(WriteListener writeListener) {
+			if (state == BUFFERING) {
+				try {
+					decide(false);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			if (state != PASSTHROUGH) {
+				throw new IllegalStateException("Non-blocking writes must start before the body is compressed");
+			}
+			out.setWriteListener(writeListener);
+		}
+
+		void finish() throws IOException {
+			if (finished) {
+				return;
+			}
+			finished = true;
+			HttpServletResponse target = (HttpServletResponse) response.getResponse();
+			switch (state) {
+				case BUFFERING:
+					// Ended below the minimum size
+					if (hasNoBody(response.getStatus())) {
+						// Content-Length would be wrong on these; for 304 it stands for the full body
+						break;
+					}
+					target.setContentLength(buffer.size());
+					out = target.getOutputStream();
+					buffer.writeTo(out);
+					break;
+				case COMPRESSING:
+					try {
+						gzip.finish();
+					} finally {
+						gzip.release();
+					}
+					compressedCount.incrementAndGet();
+					bytesIn.addAndGet(uncompressedBytes);
+					bytesOut.addAndGet(counter.count);
+					if (cacheCopy != null && cacheCopy.size() <= cacheMaxEntryBytes) {
+						putCached(cacheKey, cacheCopy.toByteArray());
+					}
+					break;
+				case CACHED:
+					cacheHitCount.incrementAndGet();
+					target.setContentLength(cached.length);
+					target.getOutputStream().write(cached);
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			// Buffered bytes stay in memory, so only the container's stream can block
+			return out == null || out.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			setNonBlocking(writeListener);
+		}
+	}
+
+	/**
+	 * Gzip stream with a configurable level whose deflater can be released
+	 * without closing the response stream underneath.
+	 */
+	private static class LevelGzipOutputStream extends GZIPOutputStream {
+		LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+			super(out, 8192, true);
+			def.setLevel(level);
+		}
+
+		/**
+		 * Free the deflater's native memory now rather than when it is collected.
+		 */
+		void release() {
+			def.end();
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private final OutputStream out;
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			count += length;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Writes to the response and keeps a copy for the cache until the copy
+	 * grows beyond the largest cacheable size.
+	 */
+	private static class TeeOutputStream extends OutputStream {
+		private final OutputStream out;
+		private final ByteArrayOutputStream copy;
+		private final int maxCopyBytes;
+
+		TeeOutputStream(OutputStream out, ByteArrayOutputStream copy, int maxCopyBytes) {
+			this.out = out;
+			this.copy = copy;
+			this.maxCopyBytes = maxCopyBytes;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			if (copy.size() <= maxCopyBytes) {
+				copy.write(bytes, offset, length);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,611 @@
+package com.migration.todo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded pool of reusable SQLite connections.
+ * <p>
+ * Borrowed connections are handed out as proxies whose {@code close()} returns
+ * the physical connection to the pool instead of closing it, so existing
+ * callers can keep using {@link TodoDatabase#closeConnection(Connection)}.
+ * Idle connections are validated before reuse once they have been idle for
+ * longer than the configured validation interval.
+ * </p>
+ * <p>
+ * Each physical connection also keeps its prepared statements open across
+ * borrows, up to the statement cache size in least recently used order. Closing
+ * a cached statement clears its parameters and gives it back to the cache, so
+ * the hot, constant SQL of the repository is only compiled once per connection.
+ * </p>
+ */
+public class ConnectionPool {
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+	// SQL with a variable number of IN parameters differs by length, so caching it only churns
+	private static final Pattern VARIABLE_IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?\\s*,");
+
+	private final String name;
+	private final String url;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long validationIntervalMillis;
+	private final int statementCacheSize;
+	private final ConnectionInitializer initializer;
+
+	private final Semaphore permits;
+	private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+	private volatile boolean closed;
+
+	// Metrics
+	private final AtomicLong acquireCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+	private final AtomicLong totalUsageNanos = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+	private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+	/**
+	 * Hook for preparing a freshly opened physical connection.
+	 */
+	public interface ConnectionInitializer {
+		void initialize(Connection connection) throws SQLException;
+	}
+
+	public ConnectionPool(String name, String url, int maxSize, long acquireTimeoutMillis,
+			long validationIntervalMillis, int statementCacheSize, ConnectionInitializer initializer) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		}
+		this.name = name;
+		this.url = url;
+		this.maxSize = maxSize;
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.validationIntervalMillis = validationIntervalMillis;
+		this.statementCacheSize = statementCacheSize;
+		this.initializer = initializer;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * Borrow a connection, waiting up to the acquire timeout for one to become free.
+	 * The caller must close the returned connection to give it back.
+	 */
+	public Connection borrow() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool '" + name + "' is closed");
+		}
+
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				TodoMetrics.recordConnectionAcquire(name, System.nanoTime() - start, false);
+				throw new SQLException("Timed out after " + acquireTimeoutMillis
+						+ " ms waiting for a connection from pool '" + name + "'");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+		long waited = System.nanoTime() - start;
+		acquireCount.incrementAndGet();
+		totalWaitNanos.addAndGet(waited);
+		maxWaitNanos.accumulate(waited);
+
+		try {
+			IdleConnection physical = takeIdleConnection();
+			if (physical == null) {
+				physical = new IdleConnection(openConnection(), newStatementCache());
+			}
+			Connection connection = wrap(physical.connection, physical.statements);
+			TodoMetrics.recordConnectionAcquire(name, System.nanoTime() - start, true);
+			return connection;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			TodoMetrics.recordConnectionAcquire(name, System.nanoTime() - start, false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Pop the most recently used idle connection, discarding any that fail validation.
+	 */
+	private IdleConnection takeIdleConnection() {
+		IdleConnection candidate;
+		while ((candidate = idle.pollFirst()) != null) {
+			long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - candidate.idleSince);
+			if (idleMillis < validationIntervalMillis || isHealthy(candidate.connection)) {
+				return candidate;
+			}
+			discard(candidate.connection, candidate.statements);
+		}
+		return null;
+	}
+
+	private boolean isHealthy(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private Connection openConnection() throws SQLException {
+		Connection connection = DriverManager.getConnection(url);
+		try {
+			if (initializer != null) {
+				initializer.initialize(connection);
+			}
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		createdCount.incrementAndGet();
+		return connection;
+	}
+
+	private StatementCache newStatementCache() {
+		return statementCacheSize > 0 ? new StatementCache() : null;
+	}
+
+	/**
+	 * Return a physical connection to the pool.
+	 */
+	private void release(Connection physical, StatementCache statements, long borrowedAt) {
+		totalUsageNanos.addAndGet(System.nanoTime() - borrowedAt);
+		try {
+			if (closed || physical.isClosed()) {
+				discard(physical, statements);
+				return;
+			}
+			if (statements != null) {
+				statements.closeInUse();
+			}
+			if (!physical.getAutoCommit()) {
+				// Never hand a half-finished transaction to the next borrower
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			idle.offerFirst(new IdleConnection(physical, statements));
+		} catch (SQLException e) {
+			System.err.println("Discarding broken pooled connection: " + e.getMessage());
+			discard(physical, statements);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private void discard(Connection connection, StatementCache statements) {
+		discardedCount.incrementAndGet();
+		if (statements != null) {
+			statements.closeAll();
+		}
+		TodoDatabase.closeConnection(connection);
+	}
+
+	/**
+	 * Close all idle connections and reject further borrowing. Connections that
+	 * are still borrowed are closed when they are returned.
+	 */
+	public void close() {
+		closed = true;
+		IdleConnection candidate;
+		while ((candidate = idle.pollFirst()) != null) {
+			if (candidate.statements != null) {
+				candidate.statements.closeAll();
+			}
+			TodoDatabase.closeConnection(candidate.connection);
+		}
+	}
+
+	private Connection wrap(Connection physical, StatementCache statements) {
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class },
+				new PooledConnectionHandler(physical, statements));
+	}
+
+	// ==================== Metrics ====================
+
+	public String getName() {
+		return name;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getActiveCount() {
+		return maxSize - permits.availablePermits();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	public long getAcquireCount() {
+		return acquireCount.get();
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public long getCreatedCount() {
+		return createdCount.get();
+	}
+
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+
+	public long getTotalWaitNanos() {
+		return totalWaitNanos.get();
+	}
+
+	public long getMaxWaitNanos() {
+		return maxWaitNanos.get();
+	}
+
+	public long getTotalUsageNanos() {
+		return totalUsageNanos.get();
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	public long getStatementCacheEvictions() {
+		return statementCacheEvictions.get();
+	}
+
+	/**
+	 * Share of prepareStatement calls served from the statement caches, between 0 and 1.
+	 */
+	public double getStatementCacheHitRatio() {
+		long hits = statementCacheHits.get();
+		long total = hits + statementCacheMisses.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	@Override
+	public String toString() {
+		long acquired = Math.max(1, acquireCount.get());
+		return "ConnectionPool{" +
+				"name='" + name + '\'' +
+				", active=" + getActiveCount() +
+				", idle=" + getIdleCount() +
+				", waiting=" + getWaitingCount() +
+				", maxSize=" + maxSize +
+				", acquired=" + acquireCount.get() +
+				", timeouts=" + timeoutCount.get() +
+				", created=" + createdCount.get() +
+				", discarded=" + discardedCount.get() +
+				", avgWaitMicros=" + TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / acquired) +
+				", maxWaitMicros=" + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()) +
+				", avgUsageMicros=" + TimeUnit.NANOSECONDS.toMicros(totalUsageNanos.get() / acquired) +
+				", statementCacheHits=" + statementCacheHits.get() +
+				", statementCacheMisses=" + statementCacheMisses.get() +
+				", statementCacheEvictions=" + statementCacheEvictions.get() +
+				'}';
+	}
+
+	private static class IdleConnection {
+		final Connection connection;
+		final StatementCache statements;
+		final long idleSince = System.nanoTime();
+
+		IdleConnection(Connection connection, StatementCache statements) {
+			this.connection = connection;
+			this.statements = statements;
+		}
+	}
+
+	private static class CachedStatement {
+		final PreparedStatement statement;
+		boolean inUse = true;
+		boolean removed;
+
+		CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+		}
+	}
+
+	/**
+	 * The open prepared statements of one physical connection, keyed by SQL and
+	 * generated keys flag. Only the thread that borrowed the connection uses it.
+	 */
+	private class StatementCache {
+		private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * Reuse a free statement prepared for the same SQL, or prepare a new one.
+		 * A statement that is still open under the same SQL (nested use within
+		 * one borrow) is not shared; the extra one is closed for real afterwards.
+		 */
+		Statement prepare(Connection physical, Method method, Object[] args) throws Throwable {
+			String sql = (String) args[0];
+			String key = args.length == 1 ? sql : args[1] + ":" + sql;
+			CachedStatement cached = statements.get(key);
+			if (cached != null && !cached.inUse) {
+				statementCacheHits.incrementAndGet();
+				cached.inUse = true;
+				return timed(cached.statement, sql, this, cached);
+			}
+			statementCacheMisses.incrementAndGet();
+			PreparedStatement statement;
+			try {
+				statement = (PreparedStatement) method.invoke(physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (cached != null) {
+				return timed(statement, sql);
+			}
+			cached = new CachedStatement(statement);
+			statements.put(key, cached);
+			evict();
+			return timed(statement, sql, this, cached);
+		}
+
+		/**
+		 * Called when the borrower closes a cached statement.
+		 */
+		void giveBack(CachedStatement cached) {
+			if (cached.removed) {
+				// Already closed along with the connection it was left open on
+				return;
+			}
+			try {
+				cached.statement.clearParameters();
+				cached.statement.clearBatch();
+				cached.inUse = false;
+			} catch (SQLException e) {
+				System.err.println("Closing broken cached statement: " + e.getMessage());
+				remove(cached);
+			}
+			evict();
+		}
+
+		/**
+		 * Drop the least recently used free statements beyond the cache size.
+		 * Statements in use are skipped and evicted once they are given back.
+		 */
+		private void evict() {
+			Iterator<CachedStatement> iterator = statements.values().iterator();
+			while (statements.size() > statementCacheSize && iterator.hasNext()) {
+				CachedStatement cached = iterator.next();
+				if (!cached.inUse) {
+					iterator.remove();
+					cached.removed = true;
+					statementCacheEvictions.incrementAndGet();
+					TodoDatabase.closeStatement(cached.statement);
+				}
+			}
+		}
+
+		private void remove(CachedStatement cached) {
+			statements.values().remove(cached);
+			cached.removed = true;
+			TodoDatabase.closeStatement(cached.statement);
+		}
+
+		/**
+		 * Close statements the borrower left open, so a stale reference can never
+		 * reach a statement the next borrower has been given.
+		 */
+		void closeInUse() {
+			List<CachedStatement> leaked = new ArrayList<>();
+			for (CachedStatement cached : statements.values()) {
+				if (cached.inUse) {
+					leaked.add(cached);
+				}
+			}
+			for (CachedStatement cached : leaked) {
+				remove(cached);
+			}
+		}
+
+		void closeAll() {
+			for (CachedStatement cached : statements.values()) {
+				TodoDatabase.closeStatement(cached.statement);
+			}
+			statements.clear();
+		}
+	}
+
+	/**
+	 * Forwards calls to the physical connection, except {@code close()} which
+	 * returns it to the pool exactly once.
+	 */
+	private class PooledConnectionHandler implements InvocationHandler {
+		private final Connection physical;
+		private final StatementCache statements;
+		private final long borrowedAt = System.nanoTime();
+		private final AtomicBoolean returned = new AtomicBoolean();
+
+		PooledConnectionHandler(Connection physical, StatementCache statements) {
+			this.physical = physical;
+			this.statements = statements;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (returned.compareAndSet(false, true)) {
+						release(physical, statements, borrowedAt);
+					}
+					return null;
+				case "isClosed":
+					return returned.get() || physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled[" + physical + "]";
+				case "isWrapperFor":
+					return ((Class<?>) args[0]).isInstance(proxy);
+				case "unwrap":
+					// The physical connection must stay behind the pool's bookkeeping
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					throw new SQLException("Pooled connections cannot be unwrapped to " + args[0]);
+				default:
+					break;
+			}
+
+			if (returned.get()) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			if (statements != null && isCacheable(method, args)) {
+				return statements.prepare(physical, method, args);
+			}
+			Object result;
+			try {
+				result = method.invoke(physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (result instanceof Statement) {
+				String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+				return timed((Statement) result, sql);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Only {@code prepareStatement(sql)} and {@code prepareStatement(sql, autoGeneratedKeys)}
+	 * with SQL of a fixed shape are cached.
+	 */
+	private static boolean isCacheable(Method method, Object[] args) {
+		if (!method.getName().equals("prepareStatement")) {
+			return false;
+		}
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		if (parameterTypes.length > 2 || (parameterTypes.length == 2 && parameterTypes[1] != int.class)) {
+			return false;
+		}
+		return !VARIABLE_IN_LIST.matcher((String) args[0]).find();
+	}
+
+	private static Statement timed(Statement statement, String sql) {
+		return timed(statement, sql, null, null);
+	}
+
+	private static Statement timed(Statement statement, String sql, StatementCache cache, CachedStatement cached) {
+		Class<?> type = statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+		return (Statement) Proxy.newProxyInstance(
+				ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { type },
+				new TimedStatementHandler(statement, sql, cache, cached));
+	}
+
+	/**
+	 * Records the latency and outcome of every execute call in {@link TodoMetrics},
+	 * keyed by the prepared SQL (or the SQL passed to execute for plain statements).
+	 * For a cached statement, {@code close()} gives it back to its cache instead.
+	 */
+	private static class TimedStatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private final String sql;
+		private final StatementCache cache;
+		private final CachedStatement cached;
+		private boolean closed;
+
+		TimedStatementHandler(Statement statement, String sql, StatementCache cache, CachedStatement cached) {
+			this.statement = statement;
+			this.sql = sql;
+			this.cache = cache;
+			this.cached = cached;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					break;
+			}
+
+			if (cache != null) {
+				switch (method.getName()) {
+					case "close":
+						if (!closed) {
+							closed = true;
+							cache.giveBack(cached);
+						}
+						return null;
+					case "isClosed":
+						return closed || statement.isClosed();
+					default:
+						if (closed) {
+							throw new SQLException("Statement has already been closed");
+						}
+						break;
+				}
+			}
+
+			if (!method.getName().startsWith("execute")) {
+				try {
+					return method.invoke(statement, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+
+			String executed = sql != null ? sql : (args != null && args.length > 0 ? (String) args[0] : null);
+			long start = System.nanoTime();
+			boolean success = false;
+			try {
+				Object result = method.invoke(statement, args);
+				success = true;
+				return result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				TodoMetrics.recordSql(executed, System.nanoTime() - start, success);
+			}
+		}
+	}
+}
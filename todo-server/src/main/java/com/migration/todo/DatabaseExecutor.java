@@ -0,0 +1,162 @@
+package com.migration.todo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Bounded executor for the database reads of asynchronous REST handlers.
+ * <p>
+ * Handlers return the {@link DeferredResult} of {@link #submit(Supplier)},
+ * which releases the servlet thread while the query runs here. The thread
+ * count follows the read pool, so database concurrency is set independently
+ * of the number of HTTP connections. When all threads are busy and the queue
+ * is full, the result fails straight away with a RejectedExecutionException;
+ * a request that is still queued when it times out is cancelled without
+ * touching the database.
+ * </p>
+ * <p>
+ * Writes do not run here: handlers pass the future of a {@link WriteQueue}
+ * write to {@link #complete(CompletionStage, Function)}, which takes no
+ * thread while the write waits for its group commit. A burst of writes
+ * therefore neither starves reads nor limits how many writes share a commit.
+ * </p>
+ */
+public class DatabaseExecutor {
+	private final ThreadPoolExecutor executor;
+	private final long timeoutMillis;
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	/**
+	 * Create an executor sized from the settings the database was initialized with.
+	 */
+	public DatabaseExecutor() {
+		this(TodoDatabase.getSettings());
+	}
+
+	public DatabaseExecutor(DatabaseSettings settings) {
+		int threads = settings.getAsyncThreads() > 0 ? settings.getAsyncThreads() : settings.getPoolSize();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(settings.getAsyncQueueCapacity()), runnable -> {
+					Thread thread = new Thread(runnable, "todo-db-async-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.timeoutMillis = settings.getAsyncTimeoutMillis();
+		TodoMetrics.bind(this);
+	}
+
+	/**
+	 * Run database work on the executor. The result times out after the
+	 * configured request timeout.
+	 */
+	public <T> DeferredResult<T> submit(Supplier<T> work) {
+		DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+		try {
+			Future<?> task = executor.submit(() -> {
+				if (result.isSetOrExpired()) {
+					return;
+				}
+				try {
+					result.setResult(work.get());
+				} catch (RuntimeException e) {
+					result.setErrorResult(e);
+				}
+			});
+			result.onTimeout(() -> {
+				timeoutCount.incrementAndGet();
+				// Drops the task if it has not started yet; a running query finishes
+				task.cancel(false);
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCount.incrementAndGet();
+			result.setErrorResult(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Answer with the outcome of a write once it has committed, without
+	 * holding a thread while it waits. A failed write answers with its error.
+	 * The result times out after the configured request timeout.
+	 */
+	public <T, R> DeferredResult<R> complete(CompletionStage<T> write, Function<? super T, ? extends R> response) {
+		DeferredResult<R> result = new DeferredResult<>(timeoutMillis);
+		result.onTimeout(timeoutCount::incrementAndGet);
+		write.whenComplete((value, error) -> {
+			if (error != null) {
+				result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+				return;
+			}
+			try {
+				result.setResult(response.apply(value));
+			} catch (RuntimeException e) {
+				result.setErrorResult(e);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Answer with the result of a write once it has committed.
+	 */
+	public <T> DeferredResult<T> complete(CompletionStage<T> write) {
+		return complete(write, Function.identity());
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	public int getThreadCount() {
+		return executor.getMaximumPoolSize();
+	}
+
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	public long getCompletedCount() {
+		return executor.getCompletedTaskCount();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "DatabaseExecutor{" +
+				"threads=" + getThreadCount() +
+				", active=" + getActiveCount() +
+				", queued=" + getQueueDepth() +
+				", rejected=" + rejectedCount.get() +
+				", timedOut=" + timeoutCount.get() +
+				'}';
+	}
+}
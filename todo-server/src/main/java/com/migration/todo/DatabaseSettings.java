@@ -0,0 +1,353 @@
+package com.migration.todo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Startup configuration for the SQLite database, its storage mode and its
+ * connection pools.
+ * Values are read from JVM system properties first and then from the given
+ * lookup (normally the servlet context init parameters in web.xml).
+ */
+public class DatabaseSettings {
+	public static final String DB_FILE = "todo.db.file";
+	public static final String POOL_SIZE = "todo.db.pool.size";
+	public static final String ACQUIRE_TIMEOUT_MS = "todo.db.pool.acquireTimeoutMs";
+	public static final String VALIDATION_INTERVAL_MS = "todo.db.pool.validationIntervalMs";
+	public static final String STATEMENT_CACHE_SIZE = "todo.db.pool.statementCacheSize";
+	public static final String JOURNAL_MODE = "todo.db.journalMode";
+	public static final String SYNCHRONOUS = "todo.db.synchronous";
+	public static final String CACHE_SIZE_KB = "todo.db.cacheSizeKb";
+	public static final String MMAP_SIZE = "todo.db.mmapSize";
+	public static final String BUSY_TIMEOUT_MS = "todo.db.busyTimeoutMs";
+	public static final String TOMBSTONE_RETENTION_HOURS = "todo.db.tombstoneRetentionHours";
+	public static final String WRITE_BATCH_DELAY_MS = "todo.db.write.maxBatchDelayMs";
+	public static final String WRITE_BATCH_SIZE = "todo.db.write.maxBatchSize";
+	public static final String WRITE_TIMEOUT_MS = "todo.db.write.timeoutMs";
+	public static final String CACHE_MAX_ITEM_LISTS = "todo.cache.maxItemLists";
+	public static final String CACHE_MAX_ITEMS = "todo.cache.maxItems";
+	public static final String EVENT_BUFFER_SIZE = "todo.events.bufferSize";
+	public static final String EVENT_MAX_LONG_POLLS = "todo.events.maxLongPolls";
+	public static final String ASYNC_THREADS = "todo.async.threads";
+	public static final String ASYNC_QUEUE_CAPACITY = "todo.async.queueCapacity";
+	public static final String ASYNC_TIMEOUT_MS = "todo.async.timeoutMs";
+
+	private static final List<String> JOURNAL_MODES = Arrays.asList("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY");
+	private static final List<String> SYNCHRONOUS_MODES = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+
+	private String dbFile = "todo.db";
+	// Size of the read-only pool; writes always go through a single connection
+	private int poolSize = 8;
+	private long acquireTimeoutMillis = 5000;
+	private long validationIntervalMillis = 30000;
+	// Prepared statements kept open per pooled connection; 0 disables the cache
+	private int statementCacheSize = 32;
+	private String journalMode = "WAL";
+	// NORMAL is durable in WAL mode except for the last commits before a power loss
+	private String synchronous = "NORMAL";
+	private int cacheSizeKb = 16384;
+	private long mmapSize = 268435456L;
+	private int busyTimeoutMillis = 5000;
+	// Deleted items are reported to delta sync for this long; older clients resync in full
+	private long tombstoneRetentionHours = 720;
+	// How long the writer waits for more writes to share a commit with
+	private long writeBatchDelayMillis = 1;
+	private int writeBatchSize = 128;
+	// How long a caller waits for its write to commit before giving up on it
+	private long writeTimeoutMillis = 30000;
+	// Read-through cache bounds: lists whose items are cached, and items held by those lists
+	// together (individual items cached by id are bounded by the same count)
+	private int cacheMaxItemLists = 256;
+	private int cacheMaxItems = 10000;
+	// Change events kept for clients resuming the change feed
+	private int eventBufferSize = 10000;
+	// GWT change polls allowed to wait at once, each holding a servlet thread; others return at once
+	private int eventMaxLongPolls = 32;
+	// Executor of asynchronous REST reads: 0 threads means one per read connection
+	private int asyncThreads = 0;
+	private int asyncQueueCapacity = 256;
+	private long asyncTimeoutMillis = 10000;
+
+	/**
+	 * Settings with all default values.
+	 */
+	public DatabaseSettings() {
+	}
+
+	/**
+	 * Load settings, falling back to defaults for anything not configured.
+	 */
+	public static DatabaseSettings load(Function<String, String> lookup) {
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.dbFile = value(lookup, DB_FILE, settings.dbFile);
+		settings.poolSize = Integer.parseInt(value(lookup, POOL_SIZE, String.valueOf(settings.poolSize)));
+		settings.acquireTimeoutMillis = Long.parseLong(
+				value(lookup, ACQUIRE_TIMEOUT_MS, String.valueOf(settings.acquireTimeoutMillis)));
+		settings.validationIntervalMillis = Long.parseLong(
+				value(lookup, VALIDATION_INTERVAL_MS, String.valueOf(settings.validationIntervalMillis)));
+		settings.statementCacheSize = Integer.parseInt(
+				value(lookup, STATEMENT_CACHE_SIZE, String.valueOf(settings.statementCacheSize)));
+		settings.journalMode = value(lookup, JOURNAL_MODE, settings.journalMode).toUpperCase();
+		settings.synchronous = value(lookup, SYNCHRONOUS, settings.synchronous).toUpperCase();
+		settings.cacheSizeKb = Integer.parseInt(value(lookup, CACHE_SIZE_KB, String.valueOf(settings.cacheSizeKb)));
+		settings.mmapSize = Long.parseLong(value(lookup, MMAP_SIZE, String.valueOf(settings.mmapSize)));
+		settings.busyTimeoutMillis = Integer.parseInt(
+				value(lookup, BUSY_TIMEOUT_MS, String.valueOf(settings.busyTimeoutMillis)));
+		settings.tombstoneRetentionHours = Long.parseLong(
+				value(lookup, TOMBSTONE_RETENTION_HOURS, String.valueOf(settings.tombstoneRetentionHours)));
+		settings.writeBatchDelayMillis = Long.parseLong(
+				value(lookup, WRITE_BATCH_DELAY_MS, String.valueOf(settings.writeBatchDelayMillis)));
+		settings.writeBatchSize = Integer.parseInt(
+				value(lookup, WRITE_BATCH_SIZE, String.valueOf(settings.writeBatchSize)));
+		settings.writeTimeoutMillis = Long.parseLong(
+				value(lookup, WRITE_TIMEOUT_MS, String.valueOf(settings.writeTimeoutMillis)));
+		settings.cacheMaxItemLists = Integer.parseInt(
+				value(lookup, CACHE_MAX_ITEM_LISTS, String.valueOf(settings.cacheMaxItemLists)));
+		settings.cacheMaxItems = Integer.parseInt(value(lookup, CACHE_MAX_ITEMS, String.valueOf(settings.cacheMaxItems)));
+		settings.eventBufferSize = Integer.parseInt(
+				value(lookup, EVENT_BUFFER_SIZE, String.valueOf(settings.eventBufferSize)));
+		settings.eventMaxLongPolls = Integer.parseInt(
+				value(lookup, EVENT_MAX_LONG_POLLS, String.valueOf(settings.eventMaxLongPolls)));
+		settings.asyncThreads = Integer.parseInt(value(lookup, ASYNC_THREADS, String.valueOf(settings.asyncThreads)));
+		settings.asyncQueueCapacity = Integer.parseInt(
+				value(lookup, ASYNC_QUEUE_CAPACITY, String.valueOf(settings.asyncQueueCapacity)));
+		settings.asyncTimeoutMillis = Long.parseLong(
+				value(lookup, ASYNC_TIMEOUT_MS, String.valueOf(settings.asyncTimeoutMillis)));
+		if (settings.poolSize < 1) {
+			throw new IllegalArgumentException(POOL_SIZE + " must be at least 1");
+		}
+		if (settings.statementCacheSize < 0) {
+			throw new IllegalArgumentException(STATEMENT_CACHE_SIZE + " must not be negative");
+		}
+		if (settings.tombstoneRetentionHours < 1) {
+			throw new IllegalArgumentException(TOMBSTONE_RETENTION_HOURS + " must be at least 1");
+		}
+		if (settings.eventBufferSize < 1) {
+			throw new IllegalArgumentException(EVENT_BUFFER_SIZE + " must be at least 1");
+		}
+		if (settings.eventMaxLongPolls < 0) {
+			throw new IllegalArgumentException(EVENT_MAX_LONG_POLLS + " must not be negative");
+		}
+		if (settings.asyncQueueCapacity < 1) {
+			throw new IllegalArgumentException(ASYNC_QUEUE_CAPACITY + " must be at least 1");
+		}
+		if (settings.writeBatchSize < 1) {
+			throw new IllegalArgumentException(WRITE_BATCH_SIZE + " must be at least 1");
+		}
+		if (settings.writeTimeoutMillis < 1) {
+			throw new IllegalArgumentException(WRITE_TIMEOUT_MS + " must be at least 1");
+		}
+		// These are concatenated into PRAGMA statements, so only accept known values
+		if (!JOURNAL_MODES.contains(settings.journalMode)) {
+			throw new IllegalArgumentException(JOURNAL_MODE + " must be one of " + JOURNAL_MODES);
+		}
+		if (!SYNCHRONOUS_MODES.contains(settings.synchronous)) {
+			throw new IllegalArgumentException(SYNCHRONOUS + " must be one of " + SYNCHRONOUS_MODES);
+		}
+		return settings;
+	}
+
+	private static String value(Function<String, String> lookup, String name, String defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null && lookup != null) {
+			value = lookup.apply(name);
+		}
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+	}
+
+	public String getDbFile() {
+		return dbFile;
+	}
+
+	public void setDbFile(String dbFile) {
+		this.dbFile = dbFile;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	public long getAcquireTimeoutMillis() {
+		return acquireTimeoutMillis;
+	}
+
+	public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+	}
+
+	public long getValidationIntervalMillis() {
+		return validationIntervalMillis;
+	}
+
+	public void setValidationIntervalMillis(long validationIntervalMillis) {
+		this.validationIntervalMillis = validationIntervalMillis;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	public String getJournalMode() {
+		return journalMode;
+	}
+
+	public void setJournalMode(String journalMode) {
+		this.journalMode = journalMode;
+	}
+
+	public String getSynchronous() {
+		return synchronous;
+	}
+
+	public void setSynchronous(String synchronous) {
+		this.synchronous = synchronous;
+	}
+
+	public int getCacheSizeKb() {
+		return cacheSizeKb;
+	}
+
+	public void setCacheSizeKb(int cacheSizeKb) {
+		this.cacheSizeKb = cacheSizeKb;
+	}
+
+	public long getMmapSize() {
+		return mmapSize;
+	}
+
+	public void setMmapSize(long mmapSize) {
+		this.mmapSize = mmapSize;
+	}
+
+	public int getBusyTimeoutMillis() {
+		return busyTimeoutMillis;
+	}
+
+	public void setBusyTimeoutMillis(int busyTimeoutMillis) {
+		this.busyTimeoutMillis = busyTimeoutMillis;
+	}
+
+	public long getTombstoneRetentionHours() {
+		return tombstoneRetentionHours;
+	}
+
+	public void setTombstoneRetentionHours(long tombstoneRetentionHours) {
+		this.tombstoneRetentionHours = tombstoneRetentionHours;
+	}
+
+	public long getWriteBatchDelayMillis() {
+		return writeBatchDelayMillis;
+	}
+
+	public void setWriteBatchDelayMillis(long writeBatchDelayMillis) {
+		this.writeBatchDelayMillis = writeBatchDelayMillis;
+	}
+
+	public int getWriteBatchSize() {
+		return writeBatchSize;
+	}
+
+	public void setWriteBatchSize(int writeBatchSize) {
+		this.writeBatchSize = writeBatchSize;
+	}
+
+	public long getWriteTimeoutMillis() {
+		return writeTimeoutMillis;
+	}
+
+	public void setWriteTimeoutMillis(long writeTimeoutMillis) {
+		this.writeTimeoutMillis = writeTimeoutMillis;
+	}
+
+	public int getCacheMaxItemLists() {
+		return cacheMaxItemLists;
+	}
+
+	public void setCacheMaxItemLists(int cacheMaxItemLists) {
+		this.cacheMaxItemLists = cacheMaxItemLists;
+	}
+
+	public int getCacheMaxItems() {
+		return cacheMaxItems;
+	}
+
+	public void setCacheMaxItems(int cacheMaxItems) {
+		this.cacheMaxItems = cacheMaxItems;
+	}
+
+	public int getEventBufferSize() {
+		return eventBufferSize;
+	}
+
+	public void setEventBufferSize(int eventBufferSize) {
+		this.eventBufferSize = eventBufferSize;
+	}
+
+	public int getEventMaxLongPolls() {
+		return eventMaxLongPolls;
+	}
+
+	public void setEventMaxLongPolls(int eventMaxLongPolls) {
+		this.eventMaxLongPolls = eventMaxLongPolls;
+	}
+
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	public void setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public int getAsyncQueueCapacity() {
+		return asyncQueueCapacity;
+	}
+
+	public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+		this.asyncQueueCapacity = asyncQueueCapacity;
+	}
+
+	public long getAsyncTimeoutMillis() {
+		return asyncTimeoutMillis;
+	}
+
+	public void setAsyncTimeoutMillis(long asyncTimeoutMillis) {
+		this.asyncTimeoutMillis = asyncTimeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "DatabaseSettings{" +
+				"dbFile='" + dbFile + '\'' +
+				", poolSize=" + poolSize +
+				", acquireTimeoutMillis=" + acquireTimeoutMillis +
+				", validationIntervalMillis=" + validationIntervalMillis +
+				", statementCacheSize=" + statementCacheSize +
+				", journalMode='" + journalMode + '\'' +
+				", synchronous='" + synchronous + '\'' +
+				", cacheSizeKb=" + cacheSizeKb +
+				", mmapSize=" + mmapSize +
+				", busyTimeoutMillis=" + busyTimeoutMillis +
+				", tombstoneRetentionHours=" + tombstoneRetentionHours +
+				", writeBatchDelayMillis=" + writeBatchDelayMillis +
+				", writeBatchSize=" + writeBatchSize +
+				", writeTimeoutMillis=" + writeTimeoutMillis +
+				", cacheMaxItemLists=" + cacheMaxItemLists +
+				", cacheMaxItems=" + cacheMaxItems +
+				", eventBufferSize=" + eventBufferSize +
+				", eventMaxLongPolls=" + eventMaxLongPolls +
+				", asyncThreads=" + asyncThreads +
+				", asyncQueueCapacity=" + asyncQueueCapacity +
+				", asyncTimeoutMillis=" + asyncTimeoutMillis +
+				'}';
+	}
+}
@@ -0,0 +1,46 @@
+package com.migration.todo;
+
+import java.util.concurrent.CompletionStage;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Times every call to the shared {@link TodoRepository} bean, so REST and GWT
+ * RPC traffic are measured at the same place. Applied in applicationContext.xml.
+ * A call counts as an error if an exception escapes it, or if the repository
+ * handled a database error itself and marked it through
+ * {@link TodoMetrics#markServiceError()}. A call returning a future, such as
+ * a queued write, is timed until the future completes and counts as an error
+ * if it fails.
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		String method = invocation.getMethod().getName();
+		if ("getCache".equals(method) || "getChangeFeed".equals(method) || "getVersions".equals(method)) {
+			return invocation.proceed();
+		}
+
+		// Drop a mark left behind by a call that did not go through the proxy
+		TodoMetrics.takeServiceError();
+		long start = System.nanoTime();
+		boolean success = false;
+		boolean pending = false;
+		try {
+			Object result = invocation.proceed();
+			success = !TodoMetrics.takeServiceError();
+			if (success && result instanceof CompletionStage) {
+				pending = true;
+				((CompletionStage<?>) result).whenComplete((value, error) ->
+						TodoMetrics.recordServiceCall(method, System.nanoTime() - start, error == null));
+			}
+			return result;
+		} finally {
+			if (!pending) {
+				TodoMetrics.recordServiceCall(method, System.nanoTime() - start, success);
+			}
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package com.migration.todo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of todo lists and items with LRU eviction.
+ * <p>
+ * The items of cached lists count towards one shared bound of {@code maxItems}:
+ * whole lists are evicted, least recently used first, while the items they
+ * hold together exceed it (or while more than {@code maxItemLists} lists are
+ * cached). Items cached by id are bounded by {@code maxItems} on their own, so
+ * the cache holds at most twice {@code maxItems} items.
+ * </p>
+ * <p>
+ * Reads take a {@link #generation()} stamp before querying the database and
+ * pass it back when filling the cache; any write that happened in between
+ * bumps the generation and the (possibly stale) fill is dropped. Writers
+ * update or invalidate entries only after their transaction has committed.
+ * </p>
+ */
+public class TodoCache {
+	private final Object lock = new Object();
+
+	private final int maxItemLists;
+	private final int maxItems;
+	// Access-ordered, evicted by putItems()
+	private final LinkedHashMap<Long, List<TodoItem>> itemsByList = new LinkedHashMap<>(16, 0.75f, true);
+	// Items held by itemsByList, all lists together
+	private int listedItemCount;
+	private final LinkedHashMap<Long, TodoItem> itemsById;
+	private List<TodoList> allLists;
+	private long generation;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	public TodoCache(int maxItemLists, int maxItems) {
+		this.maxItemLists = maxItemLists;
+		this.maxItems = maxItems;
+		this.itemsById = new BoundedMap<>(maxItems);
+	}
+
+	/**
+	 * Current write generation. Take it before loading from the database.
+	 */
+	public long generation() {
+		synchronized (lock) {
+			return generation;
+		}
+	}
+
+	// ==================== Reads ====================
+
+	/**
+	 * Cached lists, or null on a miss. Returns a copy the caller may keep.
+	 */
+	public List<TodoList> getAllLists() {
+		synchronized (lock) {
+			return record(allLists == null ? null : new ArrayList<>(allLists));
+		}
+	}
+
+	/**
+	 * Cached items of a list, or null on a miss. Returns a copy the caller may keep.
+	 */
+	public List<TodoItem> getItems(long listId) {
+		synchronized (lock) {
+			List<TodoItem> items = itemsByList.get(listId);
+			return record(items == null ? null : new ArrayList<>(items));
+		}
+	}
+
+	/**
+	 * Cached item, or null on a miss.
+	 */
+	public TodoItem getItem(long id) {
+		synchronized (lock) {
+			return record(itemsById.get(id));
+		}
+	}
+
+	private <T> T record(T value) {
+		if (value == null) {
+			missCount.incrementAndGet();
+		} else {
+			hitCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	// ==================== Fills after a miss ====================
+
+	public void putAllLists(List<TodoList> lists, long loadedAt) {
+		synchronized (lock) {
+			if (loadedAt == generation) {
+				allLists = new ArrayList<>(lists);
+			}
+		}
+	}
+
+	public void putItems(long listId, List<TodoItem> items, long loadedAt) {
+		synchronized (lock) {
+			// A single huge list would otherwise pin most of the heap
+			if (loadedAt == generation && items.size() <= maxItems) {
+				removeItems(listId);
+				itemsByList.put(listId, new ArrayList<>(items));
+				listedItemCount += items.size();
+				evictLists();
+			}
+		}
+	}
+
+	public void putItem(TodoItem item, long loadedAt) {
+		synchronized (lock) {
+			if (loadedAt == generation) {
+				itemsById.put(item.getId(), item);
+			}
+		}
+	}
+
+	// ==================== Write-through after commit ====================
+
+	/**
+	 * A list was created or deleted.
+	 */
+	public void listsChanged() {
+		synchronized (lock) {
+			generation++;
+			allLists = null;
+		}
+	}
+
+	/**
+	 * A list was deleted; drop it and everything cached for its items.
+	 */
+	public void listDeleted(long listId) {
+		synchronized (lock) {
+			generation++;
+			allLists = null;
+			removeItems(listId);
+			itemsById.values().removeIf(item -> item.getListId() == listId);
+		}
+	}
+
+	/**
+	 * An item was created or updated; cache its committed state. Drops the
+	 * cached lists too, since their item counts may have changed.
+	 */
+	public void itemWritten(TodoItem item) {
+		synchronized (lock) {
+			generation++;
+			allLists = null;
+			removeItems(item.getListId());
+			itemsById.put(item.getId(), item);
+		}
+	}
+
+	/**
+	 * An item was deleted.
+	 */
+	public void itemDeleted(long id, long listId) {
+		synchronized (lock) {
+			generation++;
+			allLists = null;
+			removeItems(listId);
+			itemsById.remove(id);
+		}
+	}
+
+	private void removeItems(long listId) {
+		List<TodoItem> removed = itemsByList.remove(listId);
+		if (removed != null) {
+			listedItemCount -= removed.size();
+		}
+	}
+
+	/**
+	 * Drop least recently used lists until both bounds hold again.
+	 */
+	private void evictLists() {
+		Iterator<List<TodoItem>> eldest = itemsByList.values().iterator();
+		while (itemsByList.size() > maxItemLists || listedItemCount > maxItems) {
+			listedItemCount -= eldest.next().size();
+			eldest.remove();
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	// ==================== Statistics ====================
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	public int getCachedItemListCount() {
+		synchronized (lock) {
+			return itemsByList.size();
+		}
+	}
+
+	/**
+	 * Items held by the cached lists, all lists together.
+	 */
+	public int getCachedListItemCount() {
+		synchronized (lock) {
+			return listedItemCount;
+		}
+	}
+
+	public int getCachedItemCount() {
+		synchronized (lock) {
+			return itemsById.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "TodoCache{" +
+				"hits=" + hitCount.get() +
+				", misses=" + missCount.get() +
+				", evictions=" + evictionCount.get() +
+				", itemLists=" + getCachedItemListCount() +
+				", listedItems=" + getCachedListItemCount() +
+				", items=" + getCachedItemCount() +
+				'}';
+	}
+
+	/**
+	 * Access-ordered map that drops its least recently used entry when full.
+	 */
+	@SuppressWarnings("serial")
+	private class BoundedMap<K, V> extends LinkedHashMap<K, V> {
+		private final int maxEntries;
+
+		BoundedMap(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			if (size() > maxEntries) {
+				evictionCount.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+}
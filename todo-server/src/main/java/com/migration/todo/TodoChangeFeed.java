@@ -0,0 +1,166 @@
+package com.migration.todo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory feed of committed item changes with resumable sequence numbers.
+ * <p>
+ * Events are published on the writer thread after their transaction has
+ * committed, so sequence order is commit order. The most recent events are
+ * kept in a bounded buffer; a client that asks for changes after a sequence
+ * number from which events of its list have since been dropped (or that was
+ * handed out before a restart) gets a reset and has to reload the list.
+ * Events of other lists dropping out of the buffer do not reset it.
+ * Sequence numbers start from the boot time in microseconds, so they keep
+ * increasing across restarts.
+ * </p>
+ */
+public class TodoChangeFeed {
+
+	/**
+	 * Notified after new events have been published for a subscribed list.
+	 * Called on the writer thread, so implementations must only hand off work.
+	 */
+	public interface Listener {
+		void changed();
+	}
+
+	private final Object lock = new Object();
+	private final int capacity;
+	private final ArrayDeque<TodoChangeEvent> events;
+	private final Map<Long, Set<Listener>> listeners = new ConcurrentHashMap<>();
+	private long sequence;
+	// Sequences up to and including the start were handed out before this feed existed
+	private final long start;
+	// Per list, the sequence of its latest event dropped from the buffer
+	private final Map<Long, Long> dropped = new HashMap<>();
+
+	public TodoChangeFeed(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		this.capacity = capacity;
+		this.events = new ArrayDeque<>(Math.min(capacity, 1024));
+		this.sequence = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		this.start = sequence;
+	}
+
+	/**
+	 * Append an event and notify the list's listeners.
+	 */
+	public void publish(TodoChangeEvent.Type type, long listId, long itemId, TodoItem item) {
+		synchronized (lock) {
+			events.addLast(new TodoChangeEvent(++sequence, type, listId, itemId, item));
+			if (events.size() > capacity) {
+				TodoChangeEvent oldest = events.removeFirst();
+				dropped.put(oldest.getListId(), oldest.getSequence());
+			}
+			lock.notifyAll();
+		}
+		Set<Listener> subscribed = listeners.get(listId);
+		if (subscribed != null) {
+			for (Listener listener : subscribed) {
+				listener.changed();
+			}
+		}
+	}
+
+	/**
+	 * Sequence number of the latest event.
+	 */
+	public long getLastSequence() {
+		synchronized (lock) {
+			return sequence;
+		}
+	}
+
+	/**
+	 * Up to maxEvents changes of a list after the given sequence number, oldest first.
+	 */
+	public TodoChangeBatch getChangesAfter(long listId, long afterSequence, int maxEvents) {
+		synchronized (lock) {
+			Long droppedUpTo = dropped.get(listId);
+			if (afterSequence < start || afterSequence > sequence
+					|| (droppedUpTo != null && afterSequence < droppedUpTo)) {
+				return new TodoChangeBatch(new ArrayList<>(), sequence, true);
+			}
+
+			List<TodoChangeEvent> newer = new ArrayList<>();
+			Iterator<TodoChangeEvent> iterator = events.descendingIterator();
+			while (iterator.hasNext()) {
+				TodoChangeEvent event = iterator.next();
+				if (event.getSequence() <= afterSequence) {
+					break;
+				}
+				if (event.getListId() == listId) {
+					newer.add(event);
+				}
+			}
+			Collections.reverse(newer);
+
+			if (newer.size() > maxEvents) {
+				List<TodoChangeEvent> page = new ArrayList<>(newer.subList(0, maxEvents));
+				return new TodoChangeBatch(page, page.get(maxEvents - 1).getSequence(), false);
+			}
+			return new TodoChangeBatch(newer, sequence, false);
+		}
+	}
+
+	/**
+	 * Like {@link #getChangesAfter(long, long, int)}, but waits up to the timeout
+	 * for the first change if there is none yet.
+	 */
+	public TodoChangeBatch awaitChangesAfter(long listId, long afterSequence, int maxEvents, long timeoutMillis)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		synchronized (lock) {
+			while (true) {
+				TodoChangeBatch batch = getChangesAfter(listId, afterSequence, maxEvents);
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (batch.isReset() || !batch.getEvents().isEmpty() || remaining <= 0) {
+					return batch;
+				}
+				lock.wait(remaining);
+			}
+		}
+	}
+
+	public void subscribe(long listId, Listener listener) {
+		listeners.computeIfAbsent(listId, id -> ConcurrentHashMap.newKeySet()).add(listener);
+	}
+
+	public void unsubscribe(long listId, Listener listener) {
+		listeners.computeIfPresent(listId, (id, subscribed) -> {
+			subscribed.remove(listener);
+			return subscribed.isEmpty() ? null : subscribed;
+		});
+	}
+
+	public int getSubscriberCount() {
+		int count = 0;
+		for (Set<Listener> subscribed : listeners.values()) {
+			count += subscribed.size();
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		synchronized (lock) {
+			return "TodoChangeFeed{" +
+					"sequence=" + sequence +
+					", retained=" + events.size() +
+					", subscribers=" + getSubscriberCount() +
+					'}';
+		}
+	}
+}
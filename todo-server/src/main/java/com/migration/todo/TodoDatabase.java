@@ -1,32 +1,81 @@
 package com.migration.todo;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Initializes and manages the SQLite database for the todo application.
+ * <p>
+ * Connections come from two pools: a single writer connection that every
+ * mutation goes through, and a pool of read-only connections for queries.
+ * In WAL mode readers never block the writer (and vice versa), so read
+ * throughput scales with the reader pool while writes are serialized in the
+ * JVM instead of failing with SQLITE_BUSY. Mutations are submitted to the
+ * {@link WriteQueue}, which group-commits them on the writer connection.
+ * </p>
  */
 public class TodoDatabase {
-	private static final String DB_FILE = "todo.db";
-	private static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
+	private static volatile DatabaseSettings settings = new DatabaseSettings();
+	private static volatile ConnectionPool writePool;
+	private static volatile ConnectionPool readPool;
+	private static volatile WriteQueue writeQueue;
+	// Last change version handed out to an item write or deletion (see nextChangeVersion)
+	private static final AtomicLong changeVersion = new AtomicLong();
+	// Highest change version of a pruned tombstone; delta sync from before it must start over
+	private static volatile long tombstoneHorizon;
+	// When tombstones were last pruned; only touched by the writer
+	private static long lastTombstonePruneMillis;
+	private static final long TOMBSTONE_PRUNE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
 
 	/**
-	 * Initialize the database connection and create tables if they don't exist.
+	 * Initialize the database with default settings.
 	 */
 	public static void initializeDatabase() {
+		initializeDatabase(new DatabaseSettings());
+	}
+
+	/**
+	 * Initialize the connection pools and create tables if they don't exist.
+	 */
+	public static synchronized void initializeDatabase(DatabaseSettings databaseSettings) {
+		shutdown();
+		settings = databaseSettings;
 		try {
 			// Load SQLite JDBC driver
 			Class.forName("org.sqlite.JDBC");
 
+			createPools(databaseSettings);
+
 			// Create connection to database file
-			try (Connection connection = DriverManager.getConnection(DB_URL)) {
-				System.out.println("Database connection established: " + DB_FILE);
+			try (Connection connection = writePool.borrow()) {
+				System.out.println("Database connection established: " + databaseSettings.getDbFile());
+
+				// Journal mode is persistent, so it only needs to be set once by the writer
+				applyJournalMode(connection, databaseSettings);
 
 				// Create tables if they don't exist
 				createTablesIfNotExist(connection);
+				migrateSchema(connection);
+				createSearchIndex(connection);
+				createListSummaries(connection);
+				changeVersion.set(loadChangeVersion(connection));
+				tombstoneHorizon = loadTombstoneHorizon(connection);
+				lastTombstonePruneMillis = 0;
+				connection.setAutoCommit(false);
+				try {
+					pruneTombstonesIfDue(connection);
+					connection.commit();
+				} catch (SQLException e) {
+					connection.rollback();
+					throw e;
+				} finally {
+					connection.setAutoCommit(true);
+				}
 			}
 		} catch (ClassNotFoundException e) {
 			System.err.println("SQLite JDBC driver not found");
@@ -37,6 +86,33 @@ public class TodoDatabase {
 		}
 	}
 
+	private static void applyJournalMode(Connection connection, DatabaseSettings databaseSettings) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode = " + databaseSettings.getJournalMode())) {
+			if (resultSet.next()) {
+				System.out.println("Database journal mode: " + resultSet.getString(1));
+			}
+		}
+	}
+
+	/**
+	 * Per-connection tuning applied to every physical connection when it is opened.
+	 */
+	private static void applyConnectionPragmas(Connection connection, DatabaseSettings databaseSettings,
+			boolean readOnly) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA busy_timeout = " + databaseSettings.getBusyTimeoutMillis());
+			statement.execute("PRAGMA synchronous = " + databaseSettings.getSynchronous());
+			// Negative cache_size is in KiB rather than pages
+			statement.execute("PRAGMA cache_size = -" + databaseSettings.getCacheSizeKb());
+			statement.execute("PRAGMA mmap_size = " + databaseSettings.getMmapSize());
+			statement.execute("PRAGMA temp_store = MEMORY");
+			if (readOnly) {
+				statement.execute("PRAGMA query_only = ON");
+			}
+		}
+	}
+
 	/**
 	 * Create tables if they don't already exist.
 	 */
@@ -45,6 +121,8 @@ public class TodoDatabase {
 		String createListsTableSQL = "CREATE TABLE IF NOT EXISTS todo_lists (" +
 				"id INTEGER PRIMARY KEY AUTOINCREMENT, " +
 				"name TEXT NOT NULL UNIQUE, " +
+				"item_count INTEGER NOT NULL DEFAULT 0, " +
+				"completed_count INTEGER NOT NULL DEFAULT 0, " +
 				"created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
 				"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
 				")";
@@ -58,9 +136,24 @@ public class TodoDatabase {
 				"completed INTEGER DEFAULT 0, " +
 				"created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
 				"updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+				"version INTEGER NOT NULL DEFAULT 0, " +
 				"FOREIGN KEY(list_id) REFERENCES todo_lists(id) ON DELETE CASCADE" +
 				")";
 
+		// Deleted items, kept so that delta sync can report deletions; deleted_at is in epoch millis
+		String createTombstonesTableSQL = "CREATE TABLE IF NOT EXISTS todo_tombstones (" +
+				"item_id INTEGER PRIMARY KEY, " +
+				"list_id INTEGER NOT NULL, " +
+				"version INTEGER NOT NULL, " +
+				"deleted_at INTEGER NOT NULL DEFAULT 0" +
+				")";
+
+		// Single row holding the highest version of any pruned tombstone
+		String createTombstoneHorizonTableSQL = "CREATE TABLE IF NOT EXISTS todo_tombstone_horizon (" +
+				"id INTEGER PRIMARY KEY CHECK (id = 1), " +
+				"version INTEGER NOT NULL" +
+				")";
+
 		try (Statement statement = connection.createStatement()) {
 			statement.execute(createListsTableSQL);
 			System.out.println("Table 'todo_lists' ready (created or already exists)");
@@ -68,32 +161,400 @@ public class TodoDatabase {
 			statement.execute(createItemsTableSQL);
 			System.out.println("Table 'todo_items' ready (created or already exists)");
 
-			// Create index for better query performance
+			statement.execute(createTombstonesTableSQL);
+			System.out.println("Table 'todo_tombstones' ready (created or already exists)");
+
+			statement.execute(createTombstoneHorizonTableSQL);
+
+			// Create index for better query performance. Every SQLite index entry ends with the
+			// rowid, so this is effectively a (list_id, id) index: it serves both "WHERE list_id = ?
+			// ORDER BY id" and the keyset page query "list_id = ? AND id > ?" without a sort.
 			String createIndexSQL = "CREATE INDEX IF NOT EXISTS idx_list_id ON todo_items(list_id)";
 			statement.execute(createIndexSQL);
 			
 			String createCompletedIndexSQL = "CREATE INDEX IF NOT EXISTS idx_completed ON todo_items(completed)";
 			statement.execute(createCompletedIndexSQL);
+
+			String createTombstoneIndexSQL = "CREATE INDEX IF NOT EXISTS idx_tombstones_list_version "
+					+ "ON todo_tombstones(list_id, version)";
+			statement.execute(createTombstoneIndexSQL);
 		}
 	}
 
 	/**
-	 * Get a new database connection.
+	 * Bring databases created by earlier versions up to the current schema.
+	 * Column checks make most steps safe to repeat; one-time data fixes are
+	 * numbered and recorded in PRAGMA user_version, so each runs only once.
 	 */
-	public static Connection getConnection() throws SQLException {
-		try {
-			Class.forName("org.sqlite.JDBC");
-		} catch (ClassNotFoundException e) {
-			throw new SQLException("SQLite JDBC driver not found", e);
+	private static void migrateSchema(Connection connection) throws SQLException {
+		boolean hasVersion = false;
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("PRAGMA table_info(todo_items)")) {
+			while (resultSet.next()) {
+				hasVersion |= "version".equalsIgnoreCase(resultSet.getString("name"));
+			}
+		}
+		boolean hasDeletedAt = false;
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("PRAGMA table_info(todo_tombstones)")) {
+			while (resultSet.next()) {
+				hasDeletedAt |= "deleted_at".equalsIgnoreCase(resultSet.getString("name"));
+			}
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			if (!hasVersion) {
+				connection.setAutoCommit(false);
+				try {
+					statement.execute("ALTER TABLE todo_items ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+					// Existing rows get distinct versions below any version handed out from now on
+					statement.execute("UPDATE todo_items SET version = id");
+					connection.commit();
+				} catch (SQLException e) {
+					connection.rollback();
+					throw e;
+				} finally {
+					connection.setAutoCommit(true);
+				}
+				System.out.println("Added change version column to 'todo_items'");
+			}
+
+			if (!hasDeletedAt) {
+				statement.execute("ALTER TABLE todo_tombstones ADD COLUMN deleted_at INTEGER NOT NULL DEFAULT 0");
+				// The deletion time of existing tombstones is unknown; keep them a full retention period
+				statement.execute("UPDATE todo_tombstones SET deleted_at = " + System.currentTimeMillis());
+				System.out.println("Added deletion time column to 'todo_tombstones'");
+			}
+
+			int userVersion;
+			try (ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+				userVersion = resultSet.next() ? resultSet.getInt(1) : 0;
+			}
+			if (userVersion < 1) {
+				connection.setAutoCommit(false);
+				try {
+					// Lists used to be deleted without their items (foreign keys are not enforced)
+					String orphaned = "FROM todo_items WHERE list_id IN "
+							+ "(SELECT DISTINCT list_id FROM todo_items EXCEPT SELECT id FROM todo_lists)";
+					int orphans;
+					// Counted apart, since the update count of the delete includes the rows its triggers write
+					try (ResultSet resultSet = statement.executeQuery("SELECT count(*) " + orphaned)) {
+						orphans = resultSet.next() ? resultSet.getInt(1) : 0;
+					}
+					statement.execute("DELETE " + orphaned);
+					statement.execute("PRAGMA user_version = 1");
+					connection.commit();
+					System.out.println("Schema version 1: deleted " + orphans + " items of lists that no longer exist");
+				} catch (SQLException e) {
+					connection.rollback();
+					throw e;
+				} finally {
+					connection.setAutoCommit(true);
+				}
+			}
+
+			// Delta sync reads "list_id = ? AND version > ? ORDER BY version"
+			statement.execute("CREATE INDEX IF NOT EXISTS idx_items_list_version ON todo_items(list_id, version)");
+			statement.execute("CREATE INDEX IF NOT EXISTS idx_tombstones_deleted_at ON todo_tombstones(deleted_at)");
+		}
+	}
+
+	/**
+	 * Create the FTS5 full-text index over item titles and descriptions. It is an
+	 * external-content table (it stores only the index, not a second copy of the
+	 * text) kept in sync with todo_items by triggers, so every write path updates
+	 * it in the same transaction.
+	 */
+	private static void createSearchIndex(Connection connection) throws SQLException {
+		boolean exists;
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(
+						"SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'todo_items_fts'")) {
+			exists = resultSet.next();
+		}
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS todo_items_fts USING fts5("
+					+ "title, description, content='todo_items', content_rowid='id', "
+					+ "tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_fts_insert AFTER INSERT ON todo_items BEGIN "
+					+ "INSERT INTO todo_items_fts (rowid, title, description) VALUES (new.id, new.title, new.description); "
+					+ "END");
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_fts_delete AFTER DELETE ON todo_items BEGIN "
+					+ "INSERT INTO todo_items_fts (todo_items_fts, rowid, title, description) "
+					+ "VALUES ('delete', old.id, old.title, old.description); "
+					+ "END");
+			// Toggles and unchanged saves leave the index alone
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_fts_update AFTER UPDATE OF title, description "
+					+ "ON todo_items WHEN old.title IS NOT new.title OR old.description IS NOT new.description BEGIN "
+					+ "INSERT INTO todo_items_fts (todo_items_fts, rowid, title, description) "
+					+ "VALUES ('delete', old.id, old.title, old.description); "
+					+ "INSERT INTO todo_items_fts (rowid, title, description) VALUES (new.id, new.title, new.description); "
+					+ "END");
+
+			if (!exists) {
+				// Index the items of a database created before search existed
+				statement.execute("INSERT INTO todo_items_fts (todo_items_fts) VALUES ('rebuild')");
+			}
+		}
+		System.out.println("Full-text index 'todo_items_fts' ready");
+	}
+
+	/**
+	 * Keep the item_count and completed_count of every list in step with its
+	 * items. Triggers update them in the same transaction as each item insert,
+	 * delete and completion or list change, so reading all list summaries is a
+	 * single scan of todo_lists.
+	 */
+	private static void createListSummaries(Connection connection) throws SQLException {
+		boolean hasCounts = false;
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("PRAGMA table_info(todo_lists)")) {
+			while (resultSet.next()) {
+				hasCounts |= "item_count".equalsIgnoreCase(resultSet.getString("name"));
+			}
+		}
+
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			if (!hasCounts) {
+				statement.execute("ALTER TABLE todo_lists ADD COLUMN item_count INTEGER NOT NULL DEFAULT 0");
+				statement.execute("ALTER TABLE todo_lists ADD COLUMN completed_count INTEGER NOT NULL DEFAULT 0");
+				// Count the items of a database created before list summaries existed
+				statement.execute("UPDATE todo_lists SET "
+						+ "item_count = (SELECT count(*) FROM todo_items WHERE list_id = todo_lists.id), "
+						+ "completed_count = (SELECT count(*) FROM todo_items "
+						+ "WHERE list_id = todo_lists.id AND completed != 0)");
+				System.out.println("Added item counts to 'todo_lists'");
+			}
+
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_count_insert AFTER INSERT ON todo_items BEGIN "
+					+ "UPDATE todo_lists SET item_count = item_count + 1, "
+					+ "completed_count = completed_count + (coalesce(new.completed, 0) != 0) WHERE id = new.list_id; "
+					+ "END");
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_count_delete AFTER DELETE ON todo_items BEGIN "
+					+ "UPDATE todo_lists SET item_count = item_count - 1, "
+					+ "completed_count = completed_count - (coalesce(old.completed, 0) != 0) WHERE id = old.list_id; "
+					+ "END");
+			// Title and description edits leave the counts alone
+			statement.execute("CREATE TRIGGER IF NOT EXISTS todo_items_count_update AFTER UPDATE OF list_id, completed "
+					+ "ON todo_items WHEN old.list_id IS NOT new.list_id "
+					+ "OR (coalesce(old.completed, 0) != 0) IS NOT (coalesce(new.completed, 0) != 0) BEGIN "
+					+ "UPDATE todo_lists SET item_count = item_count - 1, "
+					+ "completed_count = completed_count - (coalesce(old.completed, 0) != 0) WHERE id = old.list_id; "
+					+ "UPDATE todo_lists SET item_count = item_count + 1, "
+					+ "completed_count = completed_count + (coalesce(new.completed, 0) != 0) WHERE id = new.list_id; "
+					+ "END");
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	private static long loadChangeVersion(Connection connection) throws SQLException {
+		String sql = "SELECT max(coalesce((SELECT max(version) FROM todo_items), 0), "
+				+ "coalesce((SELECT max(version) FROM todo_tombstones), 0))";
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(sql)) {
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+
+	private static long loadTombstoneHorizon(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT version FROM todo_tombstone_horizon WHERE id = 1")) {
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * Highest change version of a pruned tombstone. A delta sync from an older
+	 * version may have missed deletions and has to start over from version 0.
+	 */
+	public static long getTombstoneHorizon() {
+		return tombstoneHorizon;
+	}
+
+	/**
+	 * Delete tombstones older than the retention period, at most once per
+	 * {@link #TOMBSTONE_PRUNE_INTERVAL_MS}, and raise the horizon past them.
+	 * Runs on the writer connection inside the caller's transaction; the
+	 * horizon is raised before the deletion commits, so a delta sync can never
+	 * miss a pruned tombstone (at worst it resyncs in full needlessly).
+	 */
+	static void pruneTombstonesIfDue(Connection connection) throws SQLException {
+		long now = System.currentTimeMillis();
+		if (now - lastTombstonePruneMillis < TOMBSTONE_PRUNE_INTERVAL_MS) {
+			return;
+		}
+		lastTombstonePruneMillis = now;
+		long cutoff = now - TimeUnit.HOURS.toMillis(settings.getTombstoneRetentionHours());
+
+		long prunedVersion = 0;
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT max(version) FROM todo_tombstones WHERE deleted_at < ?")) {
+			statement.setLong(1, cutoff);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					prunedVersion = resultSet.getLong(1);
+				}
+			}
+		}
+		if (prunedVersion == 0) {
+			return;
+		}
+		if (prunedVersion > tombstoneHorizon) {
+			tombstoneHorizon = prunedVersion;
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO todo_tombstone_horizon (id, version) VALUES (1, ?) "
+						+ "ON CONFLICT (id) DO UPDATE SET version = max(version, excluded.version)")) {
+			statement.setLong(1, prunedVersion);
+			statement.executeUpdate();
+		}
+		try (PreparedStatement statement = connection.prepareStatement(
+				"DELETE FROM todo_tombstones WHERE deleted_at < ?")) {
+			statement.setLong(1, cutoff);
+			System.out.println("Pruned " + statement.executeUpdate() + " tombstones up to version " + prunedVersion);
+		}
+	}
+
+	/**
+	 * Next change version for an item write or deletion. Versions only ever
+	 * increase; since all writes run on the single writer thread and commit in
+	 * order, a reader never sees a version below one it has already seen.
+	 * Only call this from inside a {@link WriteQueue} task.
+	 */
+	public static long nextChangeVersion() {
+		return changeVersion.incrementAndGet();
+	}
+
+	private static void createPools(DatabaseSettings databaseSettings) {
+		String url = "jdbc:sqlite:" + databaseSettings.getDbFile();
+		// Publish the writer last: ensurePools() treats a non-null writer as "pools ready"
+		readPool = new ConnectionPool("todo-reader", url, databaseSettings.getPoolSize(),
+				databaseSettings.getAcquireTimeoutMillis(),
+				databaseSettings.getValidationIntervalMillis(),
+				databaseSettings.getStatementCacheSize(),
+				connection -> applyConnectionPragmas(connection, databaseSettings, true));
+		writeQueue = new WriteQueue(databaseSettings.getWriteBatchDelayMillis(), databaseSettings.getWriteBatchSize(),
+				databaseSettings.getWriteTimeoutMillis());
+		writePool = new ConnectionPool("todo-writer", url, 1,
+				databaseSettings.getAcquireTimeoutMillis(),
+				databaseSettings.getValidationIntervalMillis(),
+				databaseSettings.getStatementCacheSize(),
+				connection -> applyConnectionPragmas(connection, databaseSettings, false));
+		TodoMetrics.bind(readPool);
+		TodoMetrics.bind(writeQueue);
+		TodoMetrics.bind(writePool);
+	}
+
+	/**
+	 * Settings the database was initialized with (defaults if it has not been).
+	 */
+	public static DatabaseSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * Borrow the single writer connection. Only the {@link WriteQueue} thread
+	 * uses it, and holds it while it runs; submit mutations to the queue and
+	 * use {@link #getReadConnection()} for queries.
+	 */
+	static Connection getWriteConnection() throws SQLException {
+		return getWritePool().borrow();
+	}
+
+	/**
+	 * Borrow a read-only connection from the reader pool. Closing it returns it to the pool.
+	 */
+	public static Connection getReadConnection() throws SQLException {
+		return getReadPool().borrow();
+	}
+
+	/**
+	 * Get the group-commit queue that all mutations should be submitted to.
+	 */
+	public static WriteQueue getWriteQueue() throws SQLException {
+		ensurePools();
+		WriteQueue current = writeQueue;
+		if (current == null) {
+			throw new SQLException("Database has been shut down");
+		}
+		return current;
+	}
+
+	/**
+	 * Get the writer pool, creating the pools with the current settings if the
+	 * database has not been initialized yet.
+	 */
+	static ConnectionPool getWritePool() throws SQLException {
+		ensurePools();
+		return requireOpen(writePool);
+	}
+
+	/**
+	 * Get the reader pool, creating the pools with the current settings if the
+	 * database has not been initialized yet.
+	 */
+	public static ConnectionPool getReadPool() throws SQLException {
+		ensurePools();
+		return requireOpen(readPool);
+	}
+
+	private static ConnectionPool requireOpen(ConnectionPool connectionPool) throws SQLException {
+		if (connectionPool == null) {
+			throw new SQLException("Database has been shut down");
+		}
+		return connectionPool;
+	}
+
+	private static void ensurePools() throws SQLException {
+		if (writePool == null) {
+			synchronized (TodoDatabase.class) {
+				if (writePool == null) {
+					try {
+						Class.forName("org.sqlite.JDBC");
+					} catch (ClassNotFoundException e) {
+						throw new SQLException("SQLite JDBC driver not found", e);
+					}
+					createPools(settings);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop the write queue and close the connection pools and all idle connections.
+	 */
+	public static synchronized void shutdown() {
+		if (writeQueue != null) {
+			System.out.println("Stopping write queue: " + writeQueue);
+			writeQueue.shutdown();
+			writeQueue = null;
+		}
+		if (writePool != null) {
+			System.out.println("Closing database connection pool: " + writePool);
+			writePool.close();
+			writePool = null;
+		}
+		if (readPool != null) {
+			System.out.println("Closing database connection pool: " + readPool);
+			readPool.close();
+			readPool = null;
 		}
-		return DriverManager.getConnection(DB_URL);
 	}
 
 	/**
 	 * Check if the database file exists.
 	 */
 	public static boolean databaseExists() {
-		java.io.File dbFile = new java.io.File(DB_FILE);
+		java.io.File dbFile = new java.io.File(settings.getDbFile());
 		return dbFile.exists();
 	}
 
@@ -0,0 +1,210 @@
+package com.migration.todo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Process-wide metrics registry, scraped in Prometheus text format at /api/metrics.
+ * <p>
+ * Records latency (with p50/p99/p999), call and error counts per service
+ * method and per SQL statement, plus connection acquire time. Pools, the
+ * write queue, the cache and the async executor register gauges for their
+ * own counters.
+ * </p>
+ */
+public final class TodoMetrics {
+	private static final double[] PERCENTILES = { 0.5, 0.99, 0.999 };
+	// IN (?, ?, ...) lists of any length are reported as one statement
+	private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final PrometheusMeterRegistry REGISTRY = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+	// Set by a service method that handled a database error itself, read by ServiceMetricsInterceptor
+	private static final ThreadLocal<Boolean> SERVICE_ERROR = new ThreadLocal<>();
+
+	private TodoMetrics() {
+	}
+
+	public static MeterRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * Current values of all meters in the Prometheus text exposition format.
+	 */
+	public static String scrape() {
+		return REGISTRY.scrape();
+	}
+
+	// ==================== Timers ====================
+
+	/**
+	 * Record one call of a service (repository) method.
+	 */
+	public static void recordServiceCall(String method, long nanos, boolean success) {
+		timer("todo.service.calls", "TodoService operations (REST and GWT RPC)", "method", method, success)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Mark the service call running on this thread as failed. For service
+	 * methods that catch a database error and return an empty result instead
+	 * of throwing, so that the call is still recorded with outcome=error.
+	 */
+	public static void markServiceError() {
+		SERVICE_ERROR.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Whether the service call on this thread was marked as failed since the
+	 * last call; clears the mark.
+	 */
+	static boolean takeServiceError() {
+		boolean failed = SERVICE_ERROR.get() != null;
+		SERVICE_ERROR.remove();
+		return failed;
+	}
+
+	/**
+	 * Record one execution of a SQL statement.
+	 */
+	public static void recordSql(String sql, long nanos, boolean success) {
+		timer("todo.db.statements", "SQL statement executions", "sql", normalizeSql(sql), success)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Record the time spent waiting for a pooled connection.
+	 */
+	public static void recordConnectionAcquire(String pool, long nanos, boolean success) {
+		timer("todo.db.connection.acquire", "Time to borrow a pooled connection", "pool", pool, success)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static Timer timer(String name, String description, String tagKey, String tagValue, boolean success) {
+		return Timer.builder(name)
+				.description(description)
+				.tags(tagKey, tagValue, "outcome", success ? "success" : "error")
+				.publishPercentiles(PERCENTILES)
+				.register(REGISTRY);
+	}
+
+	static String normalizeSql(String sql) {
+		if (sql == null) {
+			return "unknown";
+		}
+		String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+		return PLACEHOLDER_LIST.matcher(collapsed).replaceAll("?...");
+	}
+
+	// ==================== Gauges ====================
+
+	/**
+	 * Register gauges for a connection pool, replacing those of an earlier pool with the same name.
+	 */
+	public static void bind(ConnectionPool pool) {
+		Tags tags = Tags.of("pool", pool.getName());
+		removeMeters("todo.db.pool.", tags);
+		Gauge.builder("todo.db.pool.active", pool, ConnectionPool::getActiveCount).tags(tags)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.db.pool.idle", pool, ConnectionPool::getIdleCount).tags(tags)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.db.pool.waiting", pool, ConnectionPool::getWaitingCount).tags(tags)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.db.pool.max", pool, ConnectionPool::getMaxSize).tags(tags)
+				.strongReference(true).register(REGISTRY);
+		FunctionCounter.builder("todo.db.pool.timeouts", pool, ConnectionPool::getTimeoutCount).tags(tags)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.db.pool.statements.hits", pool, ConnectionPool::getStatementCacheHits).tags(tags)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.db.pool.statements.misses", pool, ConnectionPool::getStatementCacheMisses)
+				.tags(tags).register(REGISTRY);
+		FunctionCounter.builder("todo.db.pool.statements.evictions", pool, ConnectionPool::getStatementCacheEvictions)
+				.tags(tags).register(REGISTRY);
+		Gauge.builder("todo.db.pool.statements.hit.ratio", pool, ConnectionPool::getStatementCacheHitRatio).tags(tags)
+				.strongReference(true).register(REGISTRY);
+	}
+
+	/**
+	 * Register gauges for the write queue, replacing those of an earlier queue.
+	 */
+	public static void bind(WriteQueue writeQueue) {
+		removeMeters("todo.db.write.", Tags.empty());
+		Gauge.builder("todo.db.write.queue.depth", writeQueue, WriteQueue::getQueueDepth)
+				.strongReference(true).register(REGISTRY);
+		FunctionCounter.builder("todo.db.write.tasks", writeQueue, WriteQueue::getTaskCount)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.db.write.batches", writeQueue, WriteQueue::getBatchCount)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.db.write.failed", writeQueue, WriteQueue::getFailedTaskCount)
+				.register(REGISTRY);
+	}
+
+	/**
+	 * Register gauges for the read-through cache, replacing those of an earlier cache.
+	 */
+	public static void bind(TodoCache cache) {
+		removeMeters("todo.cache.", Tags.empty());
+		FunctionCounter.builder("todo.cache.hits", cache, TodoCache::getHitCount).register(REGISTRY);
+		FunctionCounter.builder("todo.cache.misses", cache, TodoCache::getMissCount).register(REGISTRY);
+		FunctionCounter.builder("todo.cache.evictions", cache, TodoCache::getEvictionCount).register(REGISTRY);
+		Gauge.builder("todo.cache.item.lists", cache, TodoCache::getCachedItemListCount)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.cache.item.lists.items", cache, TodoCache::getCachedListItemCount)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.cache.items", cache, TodoCache::getCachedItemCount)
+				.strongReference(true).register(REGISTRY);
+	}
+
+	/**
+	 * Register gauges for the executor of asynchronous REST handlers, replacing those of an earlier one.
+	 */
+	public static void bind(DatabaseExecutor executor) {
+		removeMeters("todo.async.", Tags.empty());
+		Gauge.builder("todo.async.threads", executor, DatabaseExecutor::getThreadCount)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.async.active", executor, DatabaseExecutor::getActiveCount)
+				.strongReference(true).register(REGISTRY);
+		Gauge.builder("todo.async.queue.depth", executor, DatabaseExecutor::getQueueDepth)
+				.strongReference(true).register(REGISTRY);
+		FunctionCounter.builder("todo.async.completed", executor, DatabaseExecutor::getCompletedCount)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.async.rejected", executor, DatabaseExecutor::getRejectedCount)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.async.timeouts", executor, DatabaseExecutor::getTimeoutCount)
+				.register(REGISTRY);
+	}
+
+	/**
+	 * Register counters for response compression, replacing those of an earlier filter.
+	 */
+	public static void bind(CompressionFilter filter) {
+		removeMeters("todo.http.compression.", Tags.empty());
+		FunctionCounter.builder("todo.http.compression.responses", filter, CompressionFilter::getCompressedCount)
+				.register(REGISTRY);
+		FunctionCounter.builder("todo.http.compression.bytes.in", filter, CompressionFilter::getBytesIn)
+				.baseUnit("bytes").register(REGISTRY);
+		FunctionCounter.builder("todo.http.compression.bytes.out", filter, CompressionFilter::getBytesOut)
+				.baseUnit("bytes").register(REGISTRY);
+		FunctionCounter.builder("todo.http.compression.cache.hits", filter, CompressionFilter::getCacheHitCount)
+				.register(REGISTRY);
+	}
+
+	private static void removeMeters(String prefix, Tags tags) {
+		for (Meter meter : REGISTRY.getMeters()) {
+			Meter.Id id = meter.getId();
+			if (id.getName().startsWith(prefix) && id.getTags().containsAll(tags.stream().toList())) {
+				REGISTRY.remove(meter);
+			}
+		}
+	}
+}
@@ -0,0 +1,1438 @@
+package com.migration.todo;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Thread-safe data access for todo lists and items.
+ * <p>
+ * A single instance is created by the root Spring context and shared by the
+ * REST controllers and the GWT {@link TodoServiceImpl} servlet, so the cache
+ * and connection usage are common to every entry point.
+ * </p>
+ */
+public class TodoRepository {
+
+	/** Upper bound on operations accepted by a single batch call. */
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	/** Bound parameters per IN (...) lookup, well below SQLite's variable limit. */
+	private static final int LOOKUP_CHUNK_SIZE = 500;
+
+	/** Largest page handed out by {@link #getTodoItemsPage(long, long, int)}. */
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	/** Longest a change poll waits, kept below common proxy idle timeouts. */
+	public static final long CHANGE_POLL_TIMEOUT_MS = 25000;
+
+	/** Most change events returned by a single poll. */
+	public static final int MAX_CHANGE_EVENTS = 500;
+
+	/** Largest page of results handed out by {@link #searchTodos(String, long, int, int)}. */
+	public static final int MAX_SEARCH_RESULTS = 100;
+
+	/** Snippet match markers; control characters that cannot clash with escaped text. */
+	private static final String SNIPPET_START = "\u0002";
+	private static final String SNIPPET_END = "\u0003";
+
+	/** Returns the post-image of a written row so mutations need no follow-up SELECT. */
+	private static final String RETURNING_ITEM = "RETURNING id, list_id, title, description, completed";
+
+	private final TodoCache cache;
+	private final TodoChangeFeed changeFeed;
+	private final TodoVersions versions = new TodoVersions();
+	// Each waiting GWT poll holds a servlet thread, so only this many may wait at once
+	private final Semaphore longPolls;
+
+	/**
+	 * Receives the columns of one item row while a list is being streamed.
+	 */
+	public interface TodoItemRowHandler {
+		void handle(long id, long listId, String title, String description, boolean completed) throws IOException;
+	}
+
+	/**
+	 * Create a repository sized from the settings the database was initialized with.
+	 */
+	public TodoRepository() {
+		DatabaseSettings settings = TodoDatabase.getSettings();
+		this.cache = new TodoCache(settings.getCacheMaxItemLists(), settings.getCacheMaxItems());
+		this.changeFeed = new TodoChangeFeed(settings.getEventBufferSize());
+		this.longPolls = new Semaphore(settings.getEventMaxLongPolls());
+		TodoMetrics.bind(cache);
+	}
+
+	/**
+	 * The read-through cache in front of the list and item queries.
+	 */
+	public TodoCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Feed of committed item changes, for pushing updates to clients.
+	 */
+	public TodoChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+
+	/**
+	 * Version counters behind the ETags of the list and item collections.
+	 */
+	public TodoVersions getVersions() {
+		return versions;
+	}
+
+	// ==================== TodoList Operations ====================
+
+	/**
+	 * Get all todo lists with their item and completed counts.
+	 */
+	public List<TodoList> getAllTodoLists() {
+		List<TodoList> cached = cache.getAllLists();
+		if (cached != null) {
+			return cached;
+		}
+		long generation = cache.generation();
+
+		List<TodoList> lists = new ArrayList<>();
+		Connection connection = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			lists = loadAllTodoLists(connection);
+			cache.putAllLists(lists, generation);
+		} catch (SQLException e) {
+			System.err.println("Error retrieving todo lists: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return lists;
+	}
+
+	private List<TodoList> loadAllTodoLists(Connection connection) throws SQLException {
+		List<TodoList> lists = new ArrayList<>();
+		String sql = "SELECT id, name, item_count, completed_count FROM todo_lists ORDER BY id";
+
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				TodoList list = new TodoList(
+						resultSet.getLong("id"),
+						resultSet.getString("name"),
+						resultSet.getInt("item_count"),
+						resultSet.getInt("completed_count"));
+				lists.add(list);
+			}
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+		}
+		return lists;
+	}
+
+	/**
+	 * Get all lists and the first page of one list's items. Both are read in
+	 * one transaction, so the counts of the lists agree with the items. Falls
+	 * back to the first list when listId is 0 or the list no longer exists.
+	 */
+	public TodoBootstrap bootstrap(long listId, int limit) {
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		long generation = cache.generation();
+
+		Connection connection = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			connection.setAutoCommit(false);
+			List<TodoList> lists = loadAllTodoLists(connection);
+
+			long selectedId = lists.isEmpty() ? 0 : lists.get(0).getId();
+			for (TodoList list : lists) {
+				if (list.getId() == listId) {
+					selectedId = listId;
+				}
+			}
+			TodoItemPage items = selectedId != 0
+					? loadTodoItemsPage(connection, selectedId, 0, pageSize)
+					: new TodoItemPage();
+			connection.commit();
+
+			cache.putAllLists(lists, generation);
+			return new TodoBootstrap(lists, selectedId, items);
+		} catch (SQLException e) {
+			System.err.println("Error loading lists and items for bootstrap: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			// The pool ends the read transaction if it is still open
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a new todo list.
+	 */
+	public TodoList createTodoList(String name) {
+		try {
+			return TodoDatabase.getWriteQueue().submit(createTodoListTask(name));
+		} catch (SQLException e) {
+			System.err.println("Error creating todo list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Like {@link #createTodoList}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<TodoList> createTodoListAsync(String name) {
+		return submitAsync(createTodoListTask(name), "Error creating todo list");
+	}
+
+	private WriteQueue.WriteTask<TodoList> createTodoListTask(String name) {
+		String sql = "INSERT INTO todo_lists (name) VALUES (?)";
+		return connection -> {
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+				statement.setString(1, name);
+				statement.executeUpdate();
+
+				resultSet = statement.getGeneratedKeys();
+				if (resultSet.next()) {
+					long id = resultSet.getLong(1);
+					afterCommit(() -> {
+						cache.listsChanged();
+						versions.listsChanged();
+					});
+					return new TodoList(id, name);
+				}
+				return null;
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Delete a todo list and its items. Foreign keys are not enforced (SQLite
+	 * leaves PRAGMA foreign_keys off), so the schema's ON DELETE CASCADE never
+	 * fires; the items are deleted here instead, in the same transaction, which
+	 * also runs their search index and count triggers and records tombstones.
+	 */
+	public boolean deleteTodoList(long listId) {
+		try {
+			return TodoDatabase.getWriteQueue().submit(deleteTodoListTask(listId));
+		} catch (SQLException e) {
+			System.err.println("Error deleting todo list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Like {@link #deleteTodoList}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<Boolean> deleteTodoListAsync(long listId) {
+		return submitAsync(deleteTodoListTask(listId), "Error deleting todo list");
+	}
+
+	private WriteQueue.WriteTask<Boolean> deleteTodoListTask(long listId) {
+		String deleteItemsSql = "DELETE FROM todo_items WHERE list_id = ? RETURNING id";
+		String sql = "DELETE FROM todo_lists WHERE id = ?";
+		return connection -> {
+			if (executeUpdateById(connection, sql, listId) == 0) {
+				return false;
+			}
+
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+			List<TodoItem> removed = new ArrayList<>();
+
+			try {
+				statement = connection.prepareStatement(deleteItemsSql);
+				statement.setLong(1, listId);
+				resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					removed.add(new TodoItem(resultSet.getLong(1), listId, null, null, false));
+				}
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+			addTombstones(connection, removed);
+			afterCommit(() -> {
+				cache.listDeleted(listId);
+				versions.listsChanged();
+				versions.itemsChanged(listId);
+				changeFeed.publish(TodoChangeEvent.Type.LIST_DELETED, listId, 0, null);
+			});
+			return true;
+		};
+	}
+
+	// ==================== TodoItem Operations ====================
+
+	/**
+	 * Get all todo items for a specific list.
+	 */
+	public List<TodoItem> getTodoItemsByListId(long listId) {
+		List<TodoItem> cached = cache.getItems(listId);
+		if (cached != null) {
+			return cached;
+		}
+		long generation = cache.generation();
+
+		List<TodoItem> items = new ArrayList<>();
+		String sql = "SELECT id, list_id, title, description, completed FROM todo_items WHERE list_id = ? ORDER BY id";
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				TodoItem item = readTodoItem(resultSet);
+				items.add(item);
+			}
+			cache.putItems(listId, items, generation);
+		} catch (SQLException e) {
+			System.err.println("Error retrieving todos for list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return items;
+	}
+
+	/**
+	 * Get one page of a list's items after the given id (keyset pagination).
+	 * Served by idx_list_id, so the cost depends on the page size only, not on
+	 * how far into the list the cursor is. The first page (after id 0) also
+	 * carries the list's change version, so a client can keep the list up to
+	 * date with getChangesSince from there.
+	 */
+	public TodoItemPage getTodoItemsPage(long listId, long afterId, int limit) {
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+		Connection connection = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			return loadTodoItemsPage(connection, listId, afterId, pageSize);
+		} catch (SQLException e) {
+			System.err.println("Error retrieving page of todos for list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return new TodoItemPage(new ArrayList<>(), null);
+	}
+
+	private TodoItemPage loadTodoItemsPage(Connection connection, long listId, long afterId, int pageSize)
+			throws SQLException {
+		// Read before the items: should a write commit in between, the items are
+		// newer than the version, and the changes since it only repeat that write
+		long version = afterId == 0 ? loadListVersion(connection, listId) : 0;
+		List<TodoItem> items = new ArrayList<>(pageSize + 1);
+		String sql = "SELECT id, list_id, title, description, completed FROM todo_items "
+				+ "WHERE list_id = ? AND id > ? ORDER BY id LIMIT ?";
+
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			statement.setLong(2, afterId);
+			// One extra row tells us whether another page follows
+			statement.setInt(3, pageSize + 1);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				items.add(readTodoItem(resultSet));
+			}
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+		}
+
+		TodoItemPage page = toPage(items, pageSize);
+		page.setVersion(version);
+		return page;
+	}
+
+	/**
+	 * Highest change version of a list's items and tombstones, through
+	 * idx_items_list_version and idx_tombstones_list_version, and at least the
+	 * tombstone horizon so that changes since it are never answered with a reset.
+	 */
+	private long loadListVersion(Connection connection, long listId) throws SQLException {
+		long horizon = TodoDatabase.getTombstoneHorizon();
+		String sql = "SELECT max(coalesce((SELECT max(version) FROM todo_items WHERE list_id = ?), 0), "
+				+ "coalesce((SELECT max(version) FROM todo_tombstones WHERE list_id = ?), 0))";
+
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			statement.setLong(2, listId);
+			resultSet = statement.executeQuery();
+			return Math.max(resultSet.next() ? resultSet.getLong(1) : 0, horizon);
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+		}
+	}
+
+	/**
+	 * Get the page of a list's items starting at a position, for jumping far
+	 * into a list without walking the cursors of every page before it. The
+	 * position is resolved to the id before it with an OFFSET over
+	 * idx_list_id alone (no table rows are read for the skipped items), and
+	 * the page is then read like a keyset page. Continue from the returned
+	 * page's next cursor.
+	 */
+	public TodoItemPage getTodoItemsPageAt(long listId, int offset, int limit) {
+		if (offset <= 0) {
+			return getTodoItemsPage(listId, 0, limit);
+		}
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<TodoItem> items = new ArrayList<>(pageSize + 1);
+		// No item at offset - 1 compares as NULL and yields an empty page
+		String sql = "SELECT id, list_id, title, description, completed FROM todo_items "
+				+ "WHERE list_id = ? AND id > (SELECT id FROM todo_items WHERE list_id = ? ORDER BY id LIMIT 1 OFFSET ?) "
+				+ "ORDER BY id LIMIT ?";
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			statement.setLong(2, listId);
+			statement.setInt(3, offset - 1);
+			statement.setInt(4, pageSize + 1);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				items.add(readTodoItem(resultSet));
+			}
+		} catch (SQLException e) {
+			System.err.println("Error retrieving page of todos at offset for list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+			return new TodoItemPage(new ArrayList<>(), null);
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return toPage(items, pageSize);
+	}
+
+	/**
+	 * Trim the one extra row fetched beyond the page size and use it as the sign
+	 * that another page follows.
+	 */
+	private static TodoItemPage toPage(List<TodoItem> items, int pageSize) {
+		Long nextCursor = null;
+		if (items.size() > pageSize) {
+			items.remove(pageSize);
+			nextCursor = items.get(pageSize - 1).getId();
+		}
+		return new TodoItemPage(items, nextCursor);
+	}
+
+	/**
+	 * Get up to limit items of a list changed or deleted after the given change
+	 * version, in version order. Served by idx_items_list_version and
+	 * idx_tombstones_list_version, so the cost depends on the number of changes
+	 * rather than the size of the list. A version older than the retained
+	 * deletions gets an empty reset answer, telling the client to start over
+	 * from version 0.
+	 * <p>
+	 * A full sync (version 0, continued with fullSync set) is exempt from that
+	 * check, since the items it has reached may well be older than the
+	 * horizon; once complete, its version is raised to at least the horizon.
+	 * </p>
+	 */
+	public TodoItemChanges getChangesSince(long listId, long sinceVersion, boolean fullSync, int limit) {
+		long horizon = TodoDatabase.getTombstoneHorizon();
+		long afterVersion = Math.max(0, sinceVersion);
+		fullSync |= afterVersion == 0;
+		if (!fullSync && afterVersion < horizon) {
+			TodoItemChanges reset = new TodoItemChanges(new ArrayList<>(), new ArrayList<>(), 0, false);
+			reset.setReset(true);
+			return reset;
+		}
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<TodoItem> items = new ArrayList<>();
+		List<Long> deletedIds = new ArrayList<>();
+		long version = afterVersion;
+		boolean hasMore = false;
+		String sql = "SELECT id, list_id, title, description, completed, version, 0 AS deleted FROM todo_items "
+				+ "WHERE list_id = ? AND version > ? "
+				+ "UNION ALL "
+				+ "SELECT item_id, list_id, NULL, NULL, 0, version, 1 FROM todo_tombstones "
+				+ "WHERE list_id = ? AND version > ? "
+				+ "ORDER BY version LIMIT ?";
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			statement.setLong(2, afterVersion);
+			statement.setLong(3, listId);
+			statement.setLong(4, afterVersion);
+			// One extra row tells us whether more changes follow
+			statement.setInt(5, pageSize + 1);
+			resultSet = statement.executeQuery();
+
+			int count = 0;
+			while (resultSet.next()) {
+				if (++count > pageSize) {
+					hasMore = true;
+					break;
+				}
+				version = resultSet.getLong("version");
+				if (resultSet.getBoolean("deleted")) {
+					deletedIds.add(resultSet.getLong("id"));
+				} else {
+					items.add(readTodoItem(resultSet));
+				}
+			}
+			if (fullSync && !hasMore) {
+				version = Math.max(version, horizon);
+			}
+		} catch (SQLException e) {
+			System.err.println("Error retrieving todo changes for list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		TodoItemChanges changes = new TodoItemChanges(items, deletedIds, version, hasMore);
+		changes.setFullSync(fullSync);
+		return changes;
+	}
+
+	/**
+	 * Stream every item of a list in id order to the handler, straight from the
+	 * result set, and return the number of items. Bypasses the cache and never
+	 * holds more than the current row, so it is suited to exporting very large
+	 * lists. The read connection (and its WAL snapshot) is held until the last
+	 * row has been handled. A database error is rethrown as an IOException so
+	 * that a partially written response is aborted rather than completed.
+	 */
+	public long streamTodoItemsByListId(long listId, TodoItemRowHandler handler) throws IOException {
+		String sql = "SELECT id, list_id, title, description, completed FROM todo_items WHERE list_id = ? ORDER BY id";
+		long count = 0;
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, listId);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				handler.handle(
+						resultSet.getLong(1),
+						resultSet.getLong(2),
+						resultSet.getString(3),
+						resultSet.getString(4),
+						resultSet.getBoolean(5));
+				count++;
+			}
+		} catch (SQLException e) {
+			System.err.println("Error streaming todos for list: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+			throw new IOException("Error streaming todos for list " + listId, e);
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Full-text search of item titles and descriptions through the FTS5 index,
+	 * best match first by bm25 with title hits weighted above description hits.
+	 * Every word of the query must match; the last one also matches as a prefix
+	 * so the search works while typing. Pass listId 0 to search all lists.
+	 */
+	public TodoSearchPage searchTodos(String query, long listId, int offset, int limit) {
+		int pageSize = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+		int skip = Math.max(0, offset);
+		List<TodoSearchResult> results = new ArrayList<>(pageSize + 1);
+		String match = toMatchExpression(query);
+		if (match == null) {
+			return new TodoSearchPage(results, null);
+		}
+		String sql = "SELECT i.id, i.list_id, i.title, i.description, i.completed, "
+				+ "snippet(todo_items_fts, -1, ?, ?, '...', 16) AS snippet, "
+				+ "bm25(todo_items_fts, 10.0, 1.0) AS rank "
+				+ "FROM todo_items_fts JOIN todo_items i ON i.id = todo_items_fts.rowid "
+				+ "WHERE todo_items_fts MATCH ? " + (listId > 0 ? "AND i.list_id = ? " : "")
+				+ "ORDER BY rank LIMIT ? OFFSET ?";
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			int index = 1;
+			statement.setString(index++, SNIPPET_START);
+			statement.setString(index++, SNIPPET_END);
+			statement.setString(index++, match);
+			if (listId > 0) {
+				statement.setLong(index++, listId);
+			}
+			// One extra row tells us whether another page follows
+			statement.setInt(index++, pageSize + 1);
+			statement.setInt(index, skip);
+			resultSet = statement.executeQuery();
+
+			while (resultSet.next()) {
+				results.add(new TodoSearchResult(
+						readTodoItem(resultSet),
+						toSnippetHtml(resultSet.getString("snippet")),
+						resultSet.getDouble("rank")));
+			}
+		} catch (SQLException e) {
+			System.err.println("Error searching todos: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		Integer nextOffset = null;
+		if (results.size() > pageSize) {
+			results.remove(pageSize);
+			nextOffset = skip + pageSize;
+		}
+		return new TodoSearchPage(results, nextOffset);
+	}
+
+	/**
+	 * Turn free text into an FTS5 query that cannot be a syntax error: every
+	 * word becomes a quoted string (so AND, NEAR and column filters lose their
+	 * meaning) and the last one a prefix query. Punctuation, quotes included,
+	 * separates words just as it does for the unicode61 tokenizer.
+	 * Returns null if the text has no words.
+	 */
+	private static String toMatchExpression(String query) {
+		if (query == null) {
+			return null;
+		}
+		StringBuilder match = new StringBuilder();
+		for (String word : query.trim().split("[\\s\\p{Punct}]+")) {
+			if (word.isEmpty()) {
+				continue;
+			}
+			if (match.length() > 0) {
+				match.append(' ');
+			}
+			match.append('"').append(word).append('"');
+		}
+		return match.length() == 0 ? null : match.append('*').toString();
+	}
+
+	/**
+	 * HTML-escape a raw snippet and turn its match markers into mark tags.
+	 */
+	private static String toSnippetHtml(String snippet) {
+		if (snippet == null) {
+			return null;
+		}
+		StringBuilder html = new StringBuilder(snippet.length() + 32);
+		for (int i = 0; i < snippet.length(); i++) {
+			char c = snippet.charAt(i);
+			switch (c) {
+			case '\u0002': // SNIPPET_START
+				html.append("<mark>");
+				break;
+			case '\u0003': // SNIPPET_END
+				html.append("</mark>");
+				break;
+			case '<':
+				html.append("&lt;");
+				break;
+			case '>':
+				html.append("&gt;");
+				break;
+			case '&':
+				html.append("&amp;");
+				break;
+			case '"':
+				html.append("&quot;");
+				break;
+			case '\'':
+				html.append("&#39;");
+				break;
+			default:
+				html.append(c);
+			}
+		}
+		return html.toString();
+	}
+
+	/**
+	 * Wait up to {@link #CHANGE_POLL_TIMEOUT_MS} for changes to a list after the
+	 * given sequence number. A negative sequence returns the current position
+	 * straight away. While the maximum number of polls is already waiting
+	 * (todo.events.maxLongPolls), the changes so far are returned without
+	 * waiting and the client is expected to back off before polling again.
+	 */
+	public TodoChangeBatch pollChangeEvents(long listId, long afterSequence) {
+		if (afterSequence < 0) {
+			return new TodoChangeBatch(new ArrayList<>(), changeFeed.getLastSequence(), false);
+		}
+		if (!longPolls.tryAcquire()) {
+			return changeFeed.getChangesAfter(listId, afterSequence, MAX_CHANGE_EVENTS);
+		}
+		try {
+			return changeFeed.awaitChangesAfter(listId, afterSequence, MAX_CHANGE_EVENTS, CHANGE_POLL_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new TodoChangeBatch(new ArrayList<>(), afterSequence, false);
+		} finally {
+			longPolls.release();
+		}
+	}
+
+	/**
+	 * Get a specific todo item by ID.
+	 */
+	public TodoItem getTodoById(long id) {
+		TodoItem cached = cache.getItem(id);
+		if (cached != null) {
+			return cached;
+		}
+		long generation = cache.generation();
+
+		String sql = "SELECT id, list_id, title, description, completed FROM todo_items WHERE id = ?";
+
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+
+		try {
+			connection = TodoDatabase.getReadConnection();
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, id);
+			resultSet = statement.executeQuery();
+
+			if (resultSet.next()) {
+				TodoItem item = readTodoItem(resultSet);
+				cache.putItem(item, generation);
+				return item;
+			}
+		} catch (SQLException e) {
+			System.err.println("Error retrieving todo by id: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		} finally {
+			TodoDatabase.closeResultSet(resultSet);
+			TodoDatabase.closeStatement(statement);
+			TodoDatabase.closeConnection(connection);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a new todo item in a list.
+	 */
+	public TodoItem createTodo(long listId, String title, String description, boolean completed) {
+		try {
+			return TodoDatabase.getWriteQueue().submit(createTodoTask(listId, title, description, completed));
+		} catch (SQLException e) {
+			System.err.println("Error creating todo: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Like {@link #createTodo}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<TodoItem> createTodoAsync(long listId, String title, String description, boolean completed) {
+		return submitAsync(createTodoTask(listId, title, description, completed), "Error creating todo");
+	}
+
+	private WriteQueue.WriteTask<TodoItem> createTodoTask(long listId, String title, String description, boolean completed) {
+		String sql = "INSERT INTO todo_items (list_id, title, description, completed, version) VALUES (?, ?, ?, ?, ?) "
+				+ RETURNING_ITEM;
+		return connection -> {
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql);
+				statement.setLong(1, listId);
+				statement.setString(2, title);
+				statement.setString(3, description);
+				statement.setBoolean(4, completed);
+				statement.setLong(5, TodoDatabase.nextChangeVersion());
+				resultSet = statement.executeQuery();
+
+				return afterItemCommit(TodoChangeEvent.Type.CREATED, resultSet.next() ? readTodoItem(resultSet) : null);
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Update an existing todo item; returns null if there is no such item.
+	 */
+	public TodoItem updateTodo(long id, String title, String description, boolean completed) {
+		try {
+			return TodoDatabase.getWriteQueue().submit(updateTodoTask(id, title, description, completed));
+		} catch (SQLException e) {
+			System.err.println("Error updating todo: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Like {@link #updateTodo}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<TodoItem> updateTodoAsync(long id, String title, String description, boolean completed) {
+		return submitAsync(updateTodoTask(id, title, description, completed), "Error updating todo");
+	}
+
+	private WriteQueue.WriteTask<TodoItem> updateTodoTask(long id, String title, String description, boolean completed) {
+		String sql = "UPDATE todo_items SET title = ?, description = ?, completed = ?, version = ?, "
+				+ "updated_at = CURRENT_TIMESTAMP WHERE id = ? " + RETURNING_ITEM;
+		return connection -> {
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql);
+				statement.setString(1, title);
+				statement.setString(2, description);
+				statement.setBoolean(3, completed);
+				statement.setLong(4, TodoDatabase.nextChangeVersion());
+				statement.setLong(5, id);
+				resultSet = statement.executeQuery();
+
+				// No row means no item with that id
+				return afterItemCommit(TodoChangeEvent.Type.UPDATED, resultSet.next() ? readTodoItem(resultSet) : null);
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Delete a todo item.
+	 */
+	public boolean deleteTodo(long id) {
+		try {
+			Long listId = TodoDatabase.getWriteQueue().submit(deleteTodoTask(id));
+			return listId != null;
+		} catch (SQLException e) {
+			System.err.println("Error deleting todo: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Like {@link #deleteTodo}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<Boolean> deleteTodoAsync(long id) {
+		return submitAsync(deleteTodoTask(id), "Error deleting todo").thenApply(listId -> listId != null);
+	}
+
+	private WriteQueue.WriteTask<Long> deleteTodoTask(long id) {
+		String sql = "DELETE FROM todo_items WHERE id = ? RETURNING list_id";
+		return connection -> {
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql);
+				statement.setLong(1, id);
+				resultSet = statement.executeQuery();
+
+				if (!resultSet.next()) {
+					return null;
+				}
+				long deletedFrom = resultSet.getLong(1);
+				addTombstones(connection, Collections.singletonList(new TodoItem(id, deletedFrom, null, null, false)));
+				afterCommit(() -> itemDeleteCommitted(id, deletedFrom));
+				return deletedFrom;
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Toggle completion status of a todo item.
+	 */
+	public TodoItem toggleTodoCompletion(long id) {
+		try {
+			return TodoDatabase.getWriteQueue().submit(toggleTodoCompletionTask(id));
+		} catch (SQLException e) {
+			System.err.println("Error toggling todo: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Like {@link #toggleTodoCompletion}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<TodoItem> toggleTodoCompletionAsync(long id) {
+		return submitAsync(toggleTodoCompletionTask(id), "Error toggling todo");
+	}
+
+	private WriteQueue.WriteTask<TodoItem> toggleTodoCompletionTask(long id) {
+		// Flip the flag in SQL so concurrent toggles cannot overwrite each other
+		String sql = "UPDATE todo_items SET completed = NOT completed, version = ?, updated_at = CURRENT_TIMESTAMP "
+				+ "WHERE id = ? " + RETURNING_ITEM;
+		return connection -> {
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql);
+				statement.setLong(1, TodoDatabase.nextChangeVersion());
+				statement.setLong(2, id);
+				resultSet = statement.executeQuery();
+
+				return afterItemCommit(TodoChangeEvent.Type.TOGGLED, resultSet.next() ? readTodoItem(resultSet) : null);
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	// ==================== Batch TodoItem Operations ====================
+
+	/**
+	 * Create several todo items in one transaction.
+	 */
+	public List<TodoItem> createTodos(List<TodoItem> items) {
+		checkBatchSize(items);
+		if (items.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		try {
+			return TodoDatabase.getWriteQueue().submit(createTodosTask(items));
+		} catch (SQLException e) {
+			System.err.println("Error creating todos in batch: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return nullResults(items.size());
+	}
+
+	/**
+	 * Like {@link #createTodos}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<List<TodoItem>> createTodosAsync(List<TodoItem> items) {
+		checkBatchSize(items);
+		if (items.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		return submitAsync(createTodosTask(items), "Error creating todos in batch");
+	}
+
+	private WriteQueue.WriteTask<List<TodoItem>> createTodosTask(List<TodoItem> items) {
+		String sql = "INSERT INTO todo_items (list_id, title, description, completed, version) VALUES (?, ?, ?, ?, ?) "
+				+ RETURNING_ITEM;
+		return connection -> {
+			PreparedStatement statement = null;
+
+			try {
+				// One execution per row, so each row reports the id it was given
+				statement = connection.prepareStatement(sql);
+				List<TodoItem> created = new ArrayList<>(items.size());
+				for (TodoItem item : items) {
+					statement.setLong(1, item.getListId());
+					statement.setString(2, item.getTitle());
+					statement.setString(3, item.getDescription());
+					statement.setBoolean(4, item.isCompleted());
+					statement.setLong(5, TodoDatabase.nextChangeVersion());
+					ResultSet resultSet = statement.executeQuery();
+					try {
+						created.add(resultSet.next() ? readTodoItem(resultSet) : null);
+					} finally {
+						TodoDatabase.closeResultSet(resultSet);
+					}
+				}
+				return afterItemsCommit(TodoChangeEvent.Type.CREATED, created);
+			} finally {
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Update several todo items in one transaction.
+	 */
+	public List<TodoItem> updateTodos(List<TodoItem> items) {
+		checkBatchSize(items);
+		if (items.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		try {
+			return TodoDatabase.getWriteQueue().submit(updateTodosTask(items));
+		} catch (SQLException e) {
+			System.err.println("Error updating todos in batch: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return nullResults(items.size());
+	}
+
+	/**
+	 * Like {@link #updateTodos}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<List<TodoItem>> updateTodosAsync(List<TodoItem> items) {
+		checkBatchSize(items);
+		if (items.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		return submitAsync(updateTodosTask(items), "Error updating todos in batch");
+	}
+
+	private WriteQueue.WriteTask<List<TodoItem>> updateTodosTask(List<TodoItem> items) {
+		String sql = "UPDATE todo_items SET title = ?, description = ?, completed = ?, version = ?, "
+				+ "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+		return connection -> {
+			PreparedStatement statement = null;
+			List<Long> ids = new ArrayList<>(items.size());
+
+			try {
+				statement = connection.prepareStatement(sql);
+				for (TodoItem item : items) {
+					statement.setString(1, item.getTitle());
+					statement.setString(2, item.getDescription());
+					statement.setBoolean(3, item.isCompleted());
+					statement.setLong(4, TodoDatabase.nextChangeVersion());
+					statement.setLong(5, item.getId());
+					statement.addBatch();
+					ids.add(item.getId());
+				}
+				return afterItemsCommit(TodoChangeEvent.Type.UPDATED, postImages(connection, ids, statement.executeBatch()));
+			} finally {
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Delete several todo items in one transaction.
+	 */
+	public List<Boolean> deleteTodos(List<Long> ids) {
+		checkBatchSize(ids);
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		try {
+			return TodoDatabase.getWriteQueue().submit(deleteTodosTask(ids));
+		} catch (SQLException e) {
+			System.err.println("Error deleting todos in batch: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		List<Boolean> failed = new ArrayList<>(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			failed.add(Boolean.FALSE);
+		}
+		return failed;
+	}
+
+	/**
+	 * Like {@link #deleteTodos}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<List<Boolean>> deleteTodosAsync(List<Long> ids) {
+		checkBatchSize(ids);
+		if (ids.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		return submitAsync(deleteTodosTask(ids), "Error deleting todos in batch");
+	}
+
+	private WriteQueue.WriteTask<List<Boolean>> deleteTodosTask(List<Long> ids) {
+		String sql = "DELETE FROM todo_items WHERE id = ?";
+		return connection -> {
+			PreparedStatement statement = null;
+
+			try {
+				// Read the list ids first so the cache and change feed know which lists changed
+				Map<Long, TodoItem> existing = loadTodoItems(connection, ids);
+				statement = connection.prepareStatement(sql);
+				for (Long id : ids) {
+					statement.setLong(1, id);
+					statement.addBatch();
+				}
+				int[] counts = statement.executeBatch();
+
+				List<Boolean> results = new ArrayList<>(counts.length);
+				List<TodoItem> removed = new ArrayList<>();
+				for (int i = 0; i < counts.length; i++) {
+					results.add(counts[i] > 0);
+					TodoItem item = existing.get(ids.get(i));
+					if (counts[i] > 0 && item != null) {
+						removed.add(item);
+					}
+				}
+				addTombstones(connection, removed);
+				afterCommit(() -> {
+					for (TodoItem item : removed) {
+						itemDeleteCommitted(item.getId(), item.getListId());
+					}
+				});
+				return results;
+			} finally {
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Toggle several todo items in one transaction.
+	 */
+	public List<TodoItem> toggleTodos(List<Long> ids) {
+		checkBatchSize(ids);
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		try {
+			return TodoDatabase.getWriteQueue().submit(toggleTodosTask(ids));
+		} catch (SQLException e) {
+			System.err.println("Error toggling todos in batch: " + e.getMessage());
+			e.printStackTrace();
+			TodoMetrics.markServiceError();
+		}
+
+		return nullResults(ids.size());
+	}
+
+	/**
+	 * Like {@link #toggleTodos}, but returns straight away. The future
+	 * completes once the write has committed, or fails with its error.
+	 */
+	public CompletableFuture<List<TodoItem>> toggleTodosAsync(List<Long> ids) {
+		checkBatchSize(ids);
+		if (ids.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		return submitAsync(toggleTodosTask(ids), "Error toggling todos in batch");
+	}
+
+	private WriteQueue.WriteTask<List<TodoItem>> toggleTodosTask(List<Long> ids) {
+		String sql = "UPDATE todo_items SET completed = NOT completed, version = ?, updated_at = CURRENT_TIMESTAMP "
+				+ "WHERE id = ?";
+		return connection -> {
+			PreparedStatement statement = null;
+
+			try {
+				statement = connection.prepareStatement(sql);
+				for (Long id : ids) {
+					statement.setLong(1, TodoDatabase.nextChangeVersion());
+					statement.setLong(2, id);
+					statement.addBatch();
+				}
+				return afterItemsCommit(TodoChangeEvent.Type.TOGGLED, postImages(connection, ids, statement.executeBatch()));
+			} finally {
+				TodoDatabase.closeStatement(statement);
+			}
+		};
+	}
+
+	/**
+	 * Queue a write task without waiting for it. A failure is logged here and
+	 * still fails the returned future, so that callers can answer with an error.
+	 */
+	private static <T> CompletableFuture<T> submitAsync(WriteQueue.WriteTask<T> task, String failure) {
+		CompletableFuture<T> future;
+		try {
+			future = TodoDatabase.getWriteQueue().submitAsync(task);
+		} catch (SQLException e) {
+			future = CompletableFuture.failedFuture(e);
+		}
+		future.whenComplete((result, error) -> {
+			if (error != null) {
+				System.err.println(failure + ": " + error.getMessage());
+				error.printStackTrace();
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Have the writer thread run an action once the current write task has
+	 * committed. Cache updates and change events go through here so that they
+	 * are applied in commit order, even when writers race.
+	 */
+	private static void afterCommit(Runnable action) throws SQLException {
+		TodoDatabase.getWriteQueue().afterCommit(action);
+	}
+
+	/**
+	 * Schedule the post-commit bookkeeping for a written item, if there is one, and return it.
+	 */
+	private TodoItem afterItemCommit(TodoChangeEvent.Type type, TodoItem item) throws SQLException {
+		if (item != null) {
+			afterCommit(() -> itemCommitted(type, item));
+		}
+		return item;
+	}
+
+	/**
+	 * Schedule the post-commit bookkeeping for every written item of a batch and return the batch.
+	 */
+	private List<TodoItem> afterItemsCommit(TodoChangeEvent.Type type, List<TodoItem> written) throws SQLException {
+		afterCommit(() -> {
+			for (TodoItem item : written) {
+				if (item != null) {
+					itemCommitted(type, item);
+				}
+			}
+		});
+		return written;
+	}
+
+	private void itemCommitted(TodoChangeEvent.Type type, TodoItem item) {
+		cache.itemWritten(item);
+		versions.itemsChanged(item.getListId());
+		changeFeed.publish(type, item.getListId(), item.getId(), item);
+	}
+
+	private void itemDeleteCommitted(long id, long listId) {
+		cache.itemDeleted(id, listId);
+		versions.itemsChanged(listId);
+		changeFeed.publish(TodoChangeEvent.Type.DELETED, listId, id, null);
+	}
+
+	private static void checkBatchSize(Collection<?> operations) {
+		if (operations == null) {
+			throw new IllegalArgumentException("Batch must not be null");
+		}
+		if (operations.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("Batch exceeds " + MAX_BATCH_SIZE + " operations");
+		}
+	}
+
+	private static List<TodoItem> nullResults(int size) {
+		List<TodoItem> results = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			results.add(null);
+		}
+		return results;
+	}
+
+	/**
+	 * Build per-operation results for a batch of updates: the current row for
+	 * every operation that matched, {@code null} for those that did not.
+	 */
+	private static List<TodoItem> postImages(Connection connection, List<Long> ids, int[] counts) throws SQLException {
+		List<Long> matched = new ArrayList<>(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			if (counts[i] > 0) {
+				matched.add(ids.get(i));
+			}
+		}
+		Map<Long, TodoItem> rows = loadTodoItems(connection, matched);
+
+		List<TodoItem> results = new ArrayList<>(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			results.add(counts[i] > 0 ? rows.get(ids.get(i)) : null);
+		}
+		return results;
+	}
+
+	/**
+	 * Load the given items by id on the supplied connection.
+	 */
+	private static Map<Long, TodoItem> loadTodoItems(Connection connection, List<Long> ids) throws SQLException {
+		Map<Long, TodoItem> rows = new HashMap<>();
+
+		for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE));
+			StringBuilder sql = new StringBuilder(
+					"SELECT id, list_id, title, description, completed FROM todo_items WHERE id IN (");
+			for (int i = 0; i < chunk.size(); i++) {
+				sql.append(i == 0 ? "?" : ", ?");
+			}
+			sql.append(")");
+
+			PreparedStatement statement = null;
+			ResultSet resultSet = null;
+
+			try {
+				statement = connection.prepareStatement(sql.toString());
+				for (int i = 0; i < chunk.size(); i++) {
+					statement.setLong(i + 1, chunk.get(i));
+				}
+				resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					TodoItem item = readTodoItem(resultSet);
+					rows.put(item.getId(), item);
+				}
+			} finally {
+				TodoDatabase.closeResultSet(resultSet);
+				TodoDatabase.closeStatement(statement);
+			}
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Record deleted items so that delta sync can report them, each with a new
+	 * change version. Also prunes expired tombstones when that is due.
+	 */
+	private static void addTombstones(Connection connection, List<TodoItem> removed) throws SQLException {
+		if (removed.isEmpty()) {
+			return;
+		}
+		String sql = "INSERT OR REPLACE INTO todo_tombstones (item_id, list_id, version, deleted_at) VALUES (?, ?, ?, ?)";
+		PreparedStatement statement = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
+			for (TodoItem item : removed) {
+				statement.setLong(1, item.getId());
+				statement.setLong(2, item.getListId());
+				statement.setLong(3, TodoDatabase.nextChangeVersion());
+				statement.setLong(4, System.currentTimeMillis());
+				statement.addBatch();
+			}
+			statement.executeBatch();
+		} finally {
+			TodoDatabase.closeStatement(statement);
+		}
+		TodoDatabase.pruneTombstonesIfDue(connection);
+	}
+
+	/**
+	 * Map the current result set row to a TodoItem.
+	 */
+	private static TodoItem readTodoItem(ResultSet resultSet) throws SQLException {
+		return new TodoItem(
+				resultSet.getLong("id"),
+				resultSet.getLong("list_id"),
+				resultSet.getString("title"),
+				resultSet.getString("description"),
+				resultSet.getBoolean("completed"));
+	}
+
+	/**
+	 * Run a single-parameter update on the given connection and return the affected row count.
+	 */
+	private static int executeUpdateById(Connection connection, String sql, long id) throws SQLException {
+		PreparedStatement statement = null;
+
+		try {
+			statement = connection.prepareStatement(sql);
+			statement.setLong(1, id);
+			return statement.executeUpdate();
+		} finally {
+			TodoDatabase.closeStatement(statement);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.migration.todo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters for the HTTP-cacheable collections: the list of
+ * todo lists and the items of each list. Used to build strong ETags without
+ * querying the database.
+ * <p>
+ * Counters are bumped on the writer thread after the cache has been updated
+ * for a commit, so a reader that sees a new version is guaranteed to read the
+ * new contents. Readers must take the ETag before loading the data; a reader
+ * racing a write may then send new data under the old tag, which only costs
+ * the client one more full response. Tags carry a boot id, so tags handed
+ * out before a restart never match.
+ * </p>
+ */
+public class TodoVersions {
+	private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+	private final AtomicLong counter = new AtomicLong();
+	private final AtomicLong listsVersion = new AtomicLong();
+	// Entries are kept for deleted lists, so their tag never falls back to an earlier one
+	private final Map<Long, Long> itemVersions = new ConcurrentHashMap<>();
+
+	/**
+	 * Strong ETag of the collection of all lists.
+	 */
+	public String getListsETag() {
+		return eTag(listsVersion.get());
+	}
+
+	/**
+	 * Strong ETag of the items of a list.
+	 */
+	public String getItemsETag(long listId) {
+		return eTag(itemVersions.getOrDefault(listId, 0L));
+	}
+
+	public void listsChanged() {
+		listsVersion.set(counter.incrementAndGet());
+	}
+
+	/**
+	 * The items of a list changed, and with them the list's item counts.
+	 */
+	public void itemsChanged(long listId) {
+		long version = counter.incrementAndGet();
+		itemVersions.put(listId, version);
+		listsVersion.set(version);
+	}
+
+	private String eTag(long version) {
+		return "\"" + bootId + "-" + version + "\"";
+	}
+
+	@Override
+	public String toString() {
+		return "TodoVersions{" +
+				"bootId=" + bootId +
+				", version=" + counter.get() +
+				", lists=" + itemVersions.size() +
+				'}';
+	}
+}
@@ -0,0 +1,375 @@
+package com.migration.todo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group-commit pipeline for database writes.
+ * <p>
+ * Callers submit {@link WriteTask}s from any thread. A single writer thread
+ * collects the tasks that arrive within a small time or size window, runs
+ * them on the writer connection inside one transaction (each under its own
+ * savepoint, so one failing task does not undo the others) and commits once.
+ * Every caller is completed individually with its own result or error after
+ * the shared commit.
+ * </p>
+ */
+public class WriteQueue {
+
+	/**
+	 * A unit of work executed on the writer connection inside the shared transaction.
+	 */
+	public interface WriteTask<T> {
+		T execute(Connection connection) throws SQLException;
+	}
+
+	private final LinkedBlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+	private final long maxBatchDelayNanos;
+	private final int maxBatchSize;
+	private final long submitTimeoutMillis;
+	private final Thread writerThread;
+	private volatile boolean running = true;
+	// Write whose task is currently executing; only touched by the writer thread
+	private PendingWrite<?> current;
+
+	// Metrics
+	private final AtomicLong taskCount = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong failedTaskCount = new AtomicLong();
+
+	public WriteQueue(long maxBatchDelayMillis, int maxBatchSize, long submitTimeoutMillis) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxBatchDelayMillis));
+		this.maxBatchSize = maxBatchSize;
+		this.submitTimeoutMillis = submitTimeoutMillis;
+		this.writerThread = new Thread(this::run, "todo-db-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Queue a write and wait until the transaction containing it has committed.
+	 * If it has not committed within the submit timeout, the write is dropped
+	 * unless the writer has already started it, and an SQLException is thrown;
+	 * a write that had already started may still commit.
+	 */
+	public <T> T submit(WriteTask<T> task) throws SQLException {
+		if (Thread.currentThread() == writerThread) {
+			throw new IllegalStateException("Write tasks must not submit nested writes");
+		}
+		PendingWrite<T> pending = enqueue(task);
+		try {
+			return pending.future.get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a write to commit", e);
+		} catch (TimeoutException e) {
+			pending.abandon();
+			throw new SQLException("Timed out after " + submitTimeoutMillis + " ms waiting for a write to commit", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new SQLException("Write failed", cause);
+		}
+	}
+
+	/**
+	 * Queue a write; the returned future completes after the transaction
+	 * containing it has committed. Nobody waits for it, so a write the writer
+	 * has not started within the submit timeout is dropped and fails.
+	 */
+	public <T> CompletableFuture<T> submitAsync(WriteTask<T> task) {
+		return enqueue(task).future;
+	}
+
+	private <T> PendingWrite<T> enqueue(WriteTask<T> task) {
+		PendingWrite<T> pending = new PendingWrite<>(task,
+				System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(submitTimeoutMillis));
+		if (!running) {
+			pending.future.completeExceptionally(new SQLException("Write queue has been shut down"));
+			return pending;
+		}
+		queue.add(pending);
+		// shutdown() may have drained the queue between the check and the add; if
+		// the write is still queued then, nobody else will ever complete it
+		if (!running && queue.remove(pending)) {
+			pending.future.completeExceptionally(new SQLException("Write queue has been shut down"));
+		}
+		return pending;
+	}
+
+	/**
+	 * Run an action on the writer thread once the calling write task has been
+	 * committed, before its caller is released. Actions run in commit order, so
+	 * they can publish changes in exactly the order they were applied. They are
+	 * dropped if the task fails. May only be called from inside a write task.
+	 */
+	public void afterCommit(Runnable action) {
+		if (Thread.currentThread() != writerThread || current == null) {
+			throw new IllegalStateException("afterCommit may only be called from a write task");
+		}
+		current.afterCommit.add(action);
+	}
+
+	/**
+	 * Stop the writer thread after the current batch and fail any writes still queued.
+	 */
+	public void shutdown() {
+		running = false;
+		writerThread.interrupt();
+		try {
+			writerThread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		PendingWrite<?> pending;
+		while ((pending = queue.poll()) != null) {
+			pending.future.completeExceptionally(new SQLException("Write queue has been shut down"));
+		}
+	}
+
+	private void run() {
+		List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+		while (running) {
+			try {
+				batch.add(queue.take());
+				collectBatch(batch);
+			} catch (InterruptedException e) {
+				if (batch.isEmpty()) {
+					continue;
+				}
+			}
+			commitBatch(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Add whatever else arrives before the batch is full or the batching delay has passed.
+	 */
+	private void collectBatch(List<PendingWrite<?>> batch) throws InterruptedException {
+		queue.drainTo(batch, maxBatchSize - batch.size());
+		long deadline = System.nanoTime() + maxBatchDelayNanos;
+		while (batch.size() < maxBatchSize) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				break;
+			}
+			PendingWrite<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				break;
+			}
+			batch.add(next);
+			queue.drainTo(batch, maxBatchSize - batch.size());
+		}
+	}
+
+	private void commitBatch(List<PendingWrite<?>> batch) {
+		Connection connection = null;
+		try {
+			connection = TodoDatabase.getWriteConnection();
+			connection.setAutoCommit(false);
+
+			for (PendingWrite<?> pending : batch) {
+				if (!pending.start()) {
+					// It timed out while it was queued
+					continue;
+				}
+				Savepoint savepoint = connection.setSavepoint();
+				current = pending;
+				try {
+					pending.execute(connection);
+					connection.releaseSavepoint(savepoint);
+				} catch (SQLException | RuntimeException e) {
+					connection.rollback(savepoint);
+					connection.releaseSavepoint(savepoint);
+					pending.error = e;
+					pending.afterCommit.clear();
+				} finally {
+					current = null;
+				}
+			}
+
+			connection.commit();
+			countBatch(batch);
+			for (PendingWrite<?> pending : batch) {
+				pending.runAfterCommit();
+				pending.complete();
+			}
+		} catch (SQLException | RuntimeException e) {
+			System.err.println("Error committing write batch: " + e.getMessage());
+			e.printStackTrace();
+			rollbackQuietly(connection);
+			for (PendingWrite<?> pending : batch) {
+				// Claim writes the failure came before, so that they fail now rather than time out
+				if (!pending.started) {
+					pending.start();
+				}
+				if (pending.started && pending.error == null) {
+					pending.error = e;
+				}
+			}
+			countBatch(batch);
+			for (PendingWrite<?> pending : batch) {
+				pending.complete();
+			}
+		} finally {
+			if (connection != null) {
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					System.err.println("Error restoring autocommit: " + e.getMessage());
+				}
+			}
+			TodoDatabase.closeConnection(connection);
+		}
+	}
+
+	/**
+	 * Update the metrics for a finished batch, before its callers are released.
+	 * Only tasks that committed count as tasks, and only batches that committed
+	 * at least one task count as batches; dropped writes count as neither.
+	 */
+	private void countBatch(List<PendingWrite<?>> batch) {
+		int committed = 0;
+		for (PendingWrite<?> pending : batch) {
+			if (!pending.started) {
+				continue;
+			}
+			if (pending.error == null) {
+				committed++;
+			} else {
+				failedTaskCount.incrementAndGet();
+			}
+		}
+		if (committed > 0) {
+			taskCount.addAndGet(committed);
+			batchCount.incrementAndGet();
+		}
+	}
+
+	private static void rollbackQuietly(Connection connection) {
+		if (connection != null) {
+			try {
+				connection.rollback();
+			} catch (SQLException e) {
+				System.err.println("Error rolling back write batch: " + e.getMessage());
+			}
+		}
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public long getTaskCount() {
+		return taskCount.get();
+	}
+
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	public long getFailedTaskCount() {
+		return failedTaskCount.get();
+	}
+
+	@Override
+	public String toString() {
+		long batches = Math.max(1, batchCount.get());
+		return "WriteQueue{" +
+				"queued=" + getQueueDepth() +
+				", tasks=" + taskCount.get() +
+				", batches=" + batchCount.get() +
+				", failed=" + failedTaskCount.get() +
+				", avgBatchSize=" + (taskCount.get() / batches) +
+				'}';
+	}
+
+	private static class PendingWrite<T> {
+		final WriteTask<T> task;
+		// System.nanoTime() after which the write is dropped if it has not started
+		final long deadline;
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		final List<Runnable> afterCommit = new ArrayList<>(1);
+		T result;
+		Exception error;
+		// Whether the writer ran the task; only touched by the writer thread
+		boolean started;
+
+		// Set once the writer runs the task or the caller gives up, whichever is first
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		PendingWrite(WriteTask<T> task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Claim the write for execution. Fails if the caller has given up on it
+		 * or it has waited past its deadline, in which case it is dropped.
+		 */
+		boolean start() {
+			if (System.nanoTime() - deadline > 0) {
+				abandon();
+				return false;
+			}
+			started = claimed.compareAndSet(false, true);
+			return started;
+		}
+
+		/**
+		 * Drop the write if it has not started yet. Once started, it runs and
+		 * commits as usual but nobody waits for the outcome.
+		 */
+		void abandon() {
+			if (claimed.compareAndSet(false, true)) {
+				future.completeExceptionally(new SQLException("Write was dropped after waiting longer than the submit timeout"));
+			}
+		}
+
+		void execute(Connection connection) throws SQLException {
+			result = task.execute(connection);
+		}
+
+		void runAfterCommit() {
+			for (Runnable action : afterCommit) {
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					System.err.println("Error running after-commit action: " + e.getMessage());
+					e.printStackTrace();
+				}
+			}
+		}
+
+		void complete() {
+			if (!started) {
+				// Already failed by abandon()
+				return;
+			}
+			if (error != null) {
+				future.completeExceptionally(error);
+			} else {
+				future.complete(result);
+			}
+		}
+	}
+}
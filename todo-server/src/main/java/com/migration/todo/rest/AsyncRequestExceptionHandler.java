@@ -0,0 +1,29 @@
+package com.migration.todo.rest;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+/**
+ * Turns overload of the asynchronous handlers into 503 Service Unavailable
+ * with a Retry-After header: the database executor queue was full, or the
+ * request was not served within todo.async.timeoutMs.
+ */
+@RestControllerAdvice(assignableTypes = { TodoListController.class, TodoItemController.class,
+		BootstrapController.class })
+public class AsyncRequestExceptionHandler {
+
+	private static final String RETRY_AFTER_SECONDS = "1";
+
+	@ExceptionHandler({ RejectedExecutionException.class, AsyncRequestTimeoutException.class })
+	public ResponseEntity<Void> serviceUnavailable() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+				.build();
+	}
+}
@@ -0,0 +1,53 @@
+package com.migration.todo.rest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.migration.todo.DatabaseExecutor;
+import com.migration.todo.TodoBootstrap;
+import com.migration.todo.TodoRepository;
+
+/**
+ * REST Controller for the first screen of a client: all lists with their
+ * counts and the first page of one list's items, in a single round trip.
+ */
+@RestController
+@RequestMapping("/bootstrap")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, allowCredentials = "true")
+public class BootstrapController {
+
+	private final TodoRepository todoRepository;
+	private final DatabaseExecutor databaseExecutor;
+
+	public BootstrapController(TodoRepository todoRepository, DatabaseExecutor databaseExecutor) {
+		this.todoRepository = todoRepository;
+		this.databaseExecutor = databaseExecutor;
+	}
+
+	/**
+	 * Get the lists and the first page of items of the given list. Without a
+	 * listId, or when the list no longer exists, the first list is used.
+	 */
+	@GetMapping
+	public DeferredResult<ResponseEntity<TodoBootstrap>> bootstrap(
+			@RequestParam(value = "listId", defaultValue = "0") long listId,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		return databaseExecutor.submit(() -> {
+			try {
+				TodoBootstrap bootstrap = todoRepository.bootstrap(listId, limit);
+				if (bootstrap == null) {
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+				}
+				return ResponseEntity.ok(bootstrap);
+			} catch (Exception e) {
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+			}
+		});
+	}
+}
@@ -0,0 +1,47 @@
+package com.migration.todo.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.migration.todo.TodoCache;
+import com.migration.todo.TodoRepository;
+
+/**
+ * REST Controller exposing the counters of the shared read-through cache.
+ */
+@RestController
+@RequestMapping("/cache")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, allowCredentials = "true")
+public class CacheStatsController {
+
+	private final TodoRepository todoRepository;
+
+	public CacheStatsController(TodoRepository todoRepository) {
+		this.todoRepository = todoRepository;
+	}
+
+	/**
+	 * Get hit/miss/eviction counters and current cache sizes
+	 */
+	@GetMapping("/stats")
+	public Map<String, Object> getCacheStats() {
+		TodoCache cache = todoRepository.getCache();
+		long hits = cache.getHitCount();
+		long misses = cache.getMissCount();
+
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("hits", hits);
+		stats.put("misses", misses);
+		stats.put("evictions", cache.getEvictionCount());
+		stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		stats.put("cachedItemLists", cache.getCachedItemListCount());
+		stats.put("cachedListItems", cache.getCachedListItemCount());
+		stats.put("cachedItems", cache.getCachedItemCount());
+		return stats;
+	}
+}
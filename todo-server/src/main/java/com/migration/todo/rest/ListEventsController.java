@@ -0,0 +1,193 @@
+package com.migration.todo.rest;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.migration.todo.TodoChangeBatch;
+import com.migration.todo.TodoChangeEvent;
+import com.migration.todo.TodoChangeFeed;
+import com.migration.todo.TodoRepository;
+
+/**
+ * REST Controller streaming item changes of a list as Server-Sent Events.
+ * <p>
+ * Every event carries its feed sequence number as the SSE id, so a browser
+ * EventSource resumes automatically after a reconnect (Last-Event-ID); other
+ * clients can pass ?since=. Events are named after the change type (created,
+ * updated, toggled, deleted, list_deleted). A "reset" event means the
+ * requested position is no longer available and the list must be reloaded.
+ * </p>
+ */
+@RestController
+@RequestMapping("/lists")
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, allowCredentials = "true")
+public class ListEventsController implements DisposableBean {
+
+	/** Streams are closed after this long; EventSource reconnects and resumes. */
+	private static final long STREAM_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+	private static final long HEARTBEAT_INTERVAL_SECONDS = 15;
+	private static final long RECONNECT_DELAY_MS = 3000;
+	private static final int MAX_EVENTS_PER_SEND = 500;
+
+	private final TodoChangeFeed changeFeed;
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService executor;
+
+	public ListEventsController(TodoRepository todoRepository) {
+		this.changeFeed = todoRepository.getChangeFeed();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "todo-sse-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleWithFixedDelay(this::sendHeartbeats,
+				HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stream changes of a list, starting after the Last-Event-ID header or the
+	 * since parameter, or from now if neither is given
+	 */
+	@GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamEvents(@PathVariable("id") long listId,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+			@RequestParam(value = "since", required = false) Long since) throws IOException {
+		SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+		Long resumeFrom = lastEventId != null ? lastEventId : since;
+		Subscription subscription = new Subscription(listId, emitter,
+				resumeFrom != null ? resumeFrom : changeFeed.getLastSequence());
+
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(subscription::close);
+		emitter.onError(error -> subscription.close());
+
+		if (resumeFrom == null) {
+			// Tell the client where it is, so a reconnect before the first change still resumes
+			emitter.send(SseEmitter.event()
+					.id(String.valueOf(subscription.position))
+					.name("ready")
+					.reconnectTime(RECONNECT_DELAY_MS)
+					.data(subscription.position));
+		}
+		subscriptions.add(subscription);
+		changeFeed.subscribe(listId, subscription);
+		// Replay anything after the resume position (and anything published while subscribing)
+		subscription.changed();
+		return emitter;
+	}
+
+	private void sendHeartbeats() {
+		for (Subscription subscription : subscriptions) {
+			subscription.heartbeat();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+		for (Subscription subscription : subscriptions) {
+			subscription.emitter.complete();
+			subscription.close();
+		}
+	}
+
+	/**
+	 * One open stream. Sends are serialized on the subscription and always
+	 * continue from the last sequence sent, so replayed and live events come
+	 * out in order without duplicates.
+	 */
+	private class Subscription implements TodoChangeFeed.Listener {
+		private final long listId;
+		private final SseEmitter emitter;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed;
+		private long position;
+
+		Subscription(long listId, SseEmitter emitter, long position) {
+			this.listId = listId;
+			this.emitter = emitter;
+			this.position = position;
+		}
+
+		@Override
+		public void changed() {
+			if (!closed && scheduled.compareAndSet(false, true)) {
+				executor.execute(this::drain);
+			}
+		}
+
+		private synchronized void drain() {
+			scheduled.set(false);
+			try {
+				sendChanges();
+			} catch (IOException | IllegalStateException e) {
+				// The client went away; the container reports it through onError/onCompletion
+				close();
+			}
+		}
+
+		/**
+		 * Keep the connection open and move the position past other lists'
+		 * events. The keepalive carries the position as its id, so a reconnect
+		 * resumes from there rather than from this list's last event.
+		 */
+		synchronized void heartbeat() {
+			try {
+				sendChanges();
+				emitter.send(SseEmitter.event().id(String.valueOf(position)).comment("keepalive"));
+			} catch (IOException | IllegalStateException e) {
+				close();
+			}
+		}
+
+		/**
+		 * Send the list's events after the position and advance it to the
+		 * feed's current sequence, even if none of them were for this list.
+		 */
+		private void sendChanges() throws IOException {
+			while (!closed) {
+				TodoChangeBatch batch = changeFeed.getChangesAfter(listId, position, MAX_EVENTS_PER_SEND);
+				if (batch.isReset()) {
+					emitter.send(SseEmitter.event()
+							.id(String.valueOf(batch.getLastSequence()))
+							.name("reset")
+							.data(batch.getLastSequence()));
+				}
+				for (TodoChangeEvent event : batch.getEvents()) {
+					emitter.send(SseEmitter.event()
+							.id(String.valueOf(event.getSequence()))
+							.name(event.getType().name().toLowerCase())
+							.data(event, MediaType.APPLICATION_JSON));
+				}
+				position = batch.getLastSequence();
+				if (batch.getEvents().size() < MAX_EVENTS_PER_SEND) {
+					break;
+				}
+			}
+		}
+
+		void close() {
+			closed = true;
+			changeFeed.unsubscribe(listId, this);
+			subscriptions.remove(this);
+		}
+	}
+}
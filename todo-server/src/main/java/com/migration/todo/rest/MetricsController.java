@@ -0,0 +1,24 @@
+package com.migration.todo.rest;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.migration.todo.TodoMetrics;
+
+/**
+ * REST Controller exposing service, SQL, pool, write queue and cache metrics for Prometheus.
+ */
+@RestController
+public class MetricsController {
+
+	/** Content type of the Prometheus text exposition format. */
+	public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+	/**
+	 * Scrape all metrics
+	 */
+	@GetMapping(value = "/metrics", produces = PROMETHEUS_TEXT)
+	public String getMetrics() {
+		return TodoMetrics.scrape();
+	}
+}
@@ -1,7 +1,14 @@
 package com.migration.todo.rest;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,82 +17,312 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.migration.todo.DatabaseExecutor;
 import com.migration.todo.TodoItem;
-import com.migration.todo.TodoServiceImpl;
+import com.migration.todo.TodoItemChanges;
+import com.migration.todo.TodoItemPage;
+import com.migration.todo.TodoRepository;
+import com.migration.todo.TodoSearchPage;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * REST Controller for TodoItem operations.
  * Replaces GWT RPC TodoService item methods.
+ * Handlers return a DeferredResult and run their reads on the
+ * {@link DatabaseExecutor}, so servlet threads only handle HTTP I/O; writes
+ * complete their result from the write queue once committed.
  */
 @RestController
 @RequestMapping("/items")
 @CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, allowCredentials = "true")
 public class TodoItemController {
 
-	private final TodoServiceImpl todoService;
+	/** Media type of the newline-delimited export format. */
+	public static final String NDJSON = "application/x-ndjson";
+
+	/** Media type of the Smile binary JSON format. */
+	public static final String SMILE = "application/x-jackson-smile";
+
+	/** Items written between flushes of a streamed export. */
+	private static final int EXPORT_FLUSH_INTERVAL = 1000;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	private static final JsonFactory CBOR_FACTORY = new CBORFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	private static final JsonFactory SMILE_FACTORY = new SmileFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	private final TodoRepository todoRepository;
+	private final DatabaseExecutor databaseExecutor;
 
-	public TodoItemController() {
-		this.todoService = new TodoServiceImpl();
+	public TodoItemController(TodoRepository todoRepository, DatabaseExecutor databaseExecutor) {
+		this.todoRepository = todoRepository;
+		this.databaseExecutor = databaseExecutor;
 	}
 
 	/**
-	 * Get all items for a specific list
+	 * Get all items for a specific list. Answers 304 without loading anything
+	 * when the If-None-Match header carries the current ETag.
 	 */
 	@GetMapping("/list/{listId}")
-	public List<TodoItem> getTodoItemsByListId(@PathVariable("listId") long listId) {
-		return todoService.getTodoItemsByListId(listId);
+	public DeferredResult<ResponseEntity<List<TodoItem>>> getTodoItemsByListId(@PathVariable("listId") long listId,
+			WebRequest request) {
+		// Taken before loading, so the tag is never newer than the body
+		String eTag = todoRepository.getVersions().getItemsETag(listId);
+		if (request.checkNotModified(eTag)) {
+			// The 304 status and ETag header have been set already
+			return null;
+		}
+		return databaseExecutor.submit(() -> ResponseEntity.ok()
+				.cacheControl(CacheControl.noCache())
+				.eTag(eTag)
+				// The tag is the same in every format, so caches must key on Accept too
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(todoRepository.getTodoItemsByListId(listId)));
+	}
+
+	/**
+	 * Get one page of items for a list, e.g. /items/list/7?after=1200&amp;limit=100.
+	 * Follow nextCursor in the response until it is null. The first page's
+	 * version is where /items/list/{listId}/changes?since= picks up.
+	 */
+	@GetMapping(value = "/list/{listId}", params = "limit")
+	public DeferredResult<TodoItemPage> getTodoItemsPage(@PathVariable("listId") long listId,
+			@RequestParam(value = "after", defaultValue = "0") long after,
+			@RequestParam("limit") int limit) {
+		return databaseExecutor.submit(() -> todoRepository.getTodoItemsPage(listId, after, limit));
+	}
+
+	/**
+	 * Get the page of items for a list starting at a position, e.g.
+	 * /items/list/7?offset=50000&amp;limit=100, to jump far into a long list.
+	 * Continue with nextCursor as for the page above.
+	 */
+	@GetMapping(value = "/list/{listId}", params = { "offset", "limit" })
+	public DeferredResult<TodoItemPage> getTodoItemsPageAt(@PathVariable("listId") long listId,
+			@RequestParam("offset") int offset,
+			@RequestParam("limit") int limit) {
+		return databaseExecutor.submit(() -> todoRepository.getTodoItemsPageAt(listId, offset, limit));
+	}
+
+	/**
+	 * Get items of a list changed or deleted since a change version, e.g.
+	 * /items/list/7/changes?since=1234. Use since=0 for a full sync and the
+	 * returned version next time; while a full sync has more, continue it with
+	 * fullSync=true. "reset": true means the version is too old and the client
+	 * has to sync in full again.
+	 */
+	@GetMapping("/list/{listId}/changes")
+	public DeferredResult<TodoItemChanges> getChangesSince(@PathVariable("listId") long listId,
+			@RequestParam(value = "since", defaultValue = "0") long since,
+			@RequestParam(value = "fullSync", defaultValue = "false") boolean fullSync,
+			@RequestParam(value = "limit", defaultValue = "1000") int limit) {
+		return databaseExecutor.submit(() -> todoRepository.getChangesSince(listId, since, fullSync, limit));
+	}
+
+	/**
+	 * Stream all items of a list as they are read from the database, without
+	 * building the list in memory: a JSON array by default, one object per
+	 * line with format=ndjson, or a CBOR or Smile array with format=cbor or
+	 * format=smile. Intended for exports and full syncs of lists too
+	 * large to load at once. Runs on the servlet thread, since it writes the
+	 * response while it reads.
+	 */
+	@GetMapping("/list/{listId}/export")
+	public void exportTodoItems(@PathVariable("listId") long listId,
+			@RequestParam(value = "format", defaultValue = "json") String format,
+			HttpServletResponse response) throws IOException {
+		boolean ndjson = "ndjson".equalsIgnoreCase(format);
+		JsonFactory factory;
+		if (ndjson || "json".equalsIgnoreCase(format)) {
+			factory = JSON_FACTORY;
+			response.setContentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON_VALUE);
+			response.setCharacterEncoding("UTF-8");
+		} else if ("cbor".equalsIgnoreCase(format)) {
+			factory = CBOR_FACTORY;
+			response.setContentType(MediaType.APPLICATION_CBOR_VALUE);
+		} else if ("smile".equalsIgnoreCase(format)) {
+			factory = SMILE_FACTORY;
+			response.setContentType(SMILE);
+		} else {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), "format must be json, ndjson, cbor or smile");
+			return;
+		}
+
+		try (JsonGenerator generator = factory.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+			if (!ndjson) {
+				generator.writeStartArray();
+			}
+			long[] written = {0};
+			todoRepository.streamTodoItemsByListId(listId, (id, itemListId, title, description, completed) -> {
+				generator.writeStartObject();
+				generator.writeNumberField("id", id);
+				generator.writeNumberField("listId", itemListId);
+				generator.writeStringField("title", title);
+				generator.writeStringField("description", description);
+				generator.writeBooleanField("completed", completed);
+				generator.writeEndObject();
+				if (ndjson) {
+					generator.writeRaw('\n');
+				}
+				if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+					generator.flush();
+				}
+			});
+			if (!ndjson) {
+				generator.writeEndArray();
+			}
+		}
+	}
+
+	/**
+	 * Full-text search of item titles and descriptions, best match first, e.g.
+	 * /items/search?q=buy+milk&amp;listId=7&amp;limit=20. Follow nextOffset in the
+	 * response until it is null. Omit listId to search all lists.
+	 */
+	@GetMapping("/search")
+	public DeferredResult<ResponseEntity<TodoSearchPage>> searchTodos(@RequestParam("q") String query,
+			@RequestParam(value = "listId", defaultValue = "0") long listId,
+			@RequestParam(value = "offset", defaultValue = "0") int offset,
+			@RequestParam(value = "limit", defaultValue = "20") int limit) {
+		if (query.isBlank()) {
+			DeferredResult<ResponseEntity<TodoSearchPage>> badRequest = new DeferredResult<>();
+			badRequest.setResult(ResponseEntity.badRequest().build());
+			return badRequest;
+		}
+		return databaseExecutor.submit(() -> ResponseEntity.ok(todoRepository.searchTodos(query, listId, offset, limit)));
 	}
 
 	/**
 	 * Get a specific todo item by ID
 	 */
 	@GetMapping("/{id}")
-	public TodoItem getTodoById(@PathVariable("id") long id) {
-		return todoService.getTodoById(id);
+	public DeferredResult<TodoItem> getTodoById(@PathVariable("id") long id) {
+		return databaseExecutor.submit(() -> todoRepository.getTodoById(id));
 	}
 
 	/**
 	 * Create a new todo item
 	 */
 	@PostMapping
-	public TodoItem createTodo(@RequestBody CreateItemRequest request) {
-		return todoService.createTodo(
+	public DeferredResult<TodoItem> createTodo(@RequestBody CreateItemRequest request) {
+		return databaseExecutor.complete(todoRepository.createTodoAsync(
 			request.getListId(),
 			request.getTitle(),
 			request.getDescription(),
 			request.isCompleted()
-		);
+		));
 	}
 
 	/**
 	 * Update an existing todo item
 	 */
 	@PutMapping("/{id}")
-	public TodoItem updateTodo(@PathVariable("id") long id, @RequestBody UpdateItemRequest request) {
-		return todoService.updateTodo(
+	public DeferredResult<TodoItem> updateTodo(@PathVariable("id") long id, @RequestBody UpdateItemRequest request) {
+		return databaseExecutor.complete(todoRepository.updateTodoAsync(
 			id,
 			request.getTitle(),
 			request.getDescription(),
 			request.isCompleted()
-		);
+		));
 	}
 
 	/**
 	 * Delete a todo item
 	 */
 	@DeleteMapping("/{id}")
-	public boolean deleteTodo(@PathVariable("id") long id) {
-		return todoService.deleteTodo(id);
+	public DeferredResult<Boolean> deleteTodo(@PathVariable("id") long id) {
+		return databaseExecutor.complete(todoRepository.deleteTodoAsync(id));
 	}
 
 	/**
 	 * Toggle completion status of a todo item
 	 */
 	@PutMapping("/{id}/toggle")
-	public TodoItem toggleTodoCompletion(@PathVariable("id") long id) {
-		return todoService.toggleTodoCompletion(id);
+	public DeferredResult<TodoItem> toggleTodoCompletion(@PathVariable("id") long id) {
+		return databaseExecutor.complete(todoRepository.toggleTodoCompletionAsync(id));
+	}
+
+	// ==================== Batch operations ====================
+
+	/**
+	 * Create several items in one transaction. Results are in request order.
+	 */
+	@PostMapping("/batch")
+	public DeferredResult<ResponseEntity<List<TodoItem>>> createTodos(@RequestBody List<CreateItemRequest> requests) {
+		List<TodoItem> items = new ArrayList<>();
+		for (CreateItemRequest request : requests) {
+			items.add(new TodoItem(0, request.getListId(), request.getTitle(),
+					request.getDescription(), request.isCompleted()));
+		}
+		try {
+			return databaseExecutor.complete(todoRepository.createTodosAsync(items), ResponseEntity::ok);
+		} catch (IllegalArgumentException e) {
+			return badRequest();
+		}
+	}
+
+	/**
+	 * Update several items in one transaction. A null result means no item had that id.
+	 */
+	@PutMapping("/batch")
+	public DeferredResult<ResponseEntity<List<TodoItem>>> updateTodos(
+			@RequestBody List<BatchUpdateItemRequest> requests) {
+		List<TodoItem> items = new ArrayList<>();
+		for (BatchUpdateItemRequest request : requests) {
+			items.add(new TodoItem(request.getId(), 0, request.getTitle(),
+					request.getDescription(), request.isCompleted()));
+		}
+		try {
+			return databaseExecutor.complete(todoRepository.updateTodosAsync(items), ResponseEntity::ok);
+		} catch (IllegalArgumentException e) {
+			return badRequest();
+		}
+	}
+
+	/**
+	 * Delete several items in one transaction. Returns whether each id was deleted.
+	 */
+	@DeleteMapping("/batch")
+	public DeferredResult<ResponseEntity<List<Boolean>>> deleteTodos(@RequestBody List<Long> ids) {
+		try {
+			return databaseExecutor.complete(todoRepository.deleteTodosAsync(ids), ResponseEntity::ok);
+		} catch (IllegalArgumentException e) {
+			return badRequest();
+		}
+	}
+
+	/**
+	 * Toggle completion of several items in one transaction. A null result means no item had that id.
+	 */
+	@PutMapping("/batch/toggle")
+	public DeferredResult<ResponseEntity<List<TodoItem>>> toggleTodos(@RequestBody List<Long> ids) {
+		try {
+			return databaseExecutor.complete(todoRepository.toggleTodosAsync(ids), ResponseEntity::ok);
+		} catch (IllegalArgumentException e) {
+			return badRequest();
+		}
+	}
+
+	/**
+	 * A batch over the size limit, answered without touching the database.
+	 */
+	private static <T> DeferredResult<ResponseEntity<T>> badRequest() {
+		DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+		result.setResult(ResponseEntity.badRequest().build());
+		return result;
 	}
 
 	/**
@@ -168,4 +405,22 @@ public class TodoItemController {
 			this.completed = completed;
 		}
 	}
+
+	/**
+	 * DTO for one entry of a batch update request
+	 */
+	public static class BatchUpdateItemRequest extends UpdateItemRequest {
+		private long id;
+
+		public BatchUpdateItemRequest() {
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+	}
 }
@@ -2,6 +2,8 @@ package com.migration.todo.rest;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -12,68 +14,82 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.migration.todo.DatabaseExecutor;
 import com.migration.todo.TodoList;
-import com.migration.todo.TodoServiceImpl;
+import com.migration.todo.TodoRepository;
 
 /**
  * REST Controller for TodoList CRUD operations.
  * Replaces GWT RPC TodoService list methods.
+ * Handlers return a DeferredResult and run their reads on the
+ * {@link DatabaseExecutor}, so servlet threads only handle HTTP I/O; writes
+ * complete their result from the write queue once committed.
  */
 @RestController
 @RequestMapping("/lists")
 @CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, allowCredentials = "true")
 public class TodoListController {
 
-	private final TodoServiceImpl todoService;
+	private final TodoRepository todoRepository;
+	private final DatabaseExecutor databaseExecutor;
 
-	public TodoListController() {
-		this.todoService = new TodoServiceImpl();
+	public TodoListController(TodoRepository todoRepository, DatabaseExecutor databaseExecutor) {
+		this.todoRepository = todoRepository;
+		this.databaseExecutor = databaseExecutor;
 	}
 
 	/**
-	 * Get all todo lists
+	 * Get all todo lists. Answers 304 without loading anything when the
+	 * If-None-Match header carries the current ETag.
 	 */
 	@GetMapping
-	public ResponseEntity<List<TodoList>> getAllTodoLists() {
-		try {
-			List<TodoList> lists = todoService.getAllTodoLists();
-			return ResponseEntity.ok(lists);
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+	public DeferredResult<ResponseEntity<List<TodoList>>> getAllTodoLists(WebRequest request) {
+		// Taken before loading, so the tag is never newer than the body
+		String eTag = todoRepository.getVersions().getListsETag();
+		if (request.checkNotModified(eTag)) {
+			// The 304 status and ETag header have been set already
+			return null;
 		}
+		return databaseExecutor.submit(() -> {
+			try {
+				List<TodoList> lists = todoRepository.getAllTodoLists();
+				// The tag is the same in every format, so caches must key on Accept too
+				return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag)
+						.varyBy(HttpHeaders.ACCEPT).body(lists);
+			} catch (Exception e) {
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+			}
+		});
 	}
 
 	/**
 	 * Create a new todo list
 	 */
 	@PostMapping
-	public ResponseEntity<TodoList> createTodoList(@RequestBody CreateListRequest request) {
-		try {
-			if (request == null || request.getName() == null || request.getName().trim().isEmpty()) {
-				return ResponseEntity.badRequest().build();
-			}
-			TodoList newList = todoService.createTodoList(request.getName());
-			return ResponseEntity.status(HttpStatus.CREATED).body(newList);
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+	public DeferredResult<ResponseEntity<TodoList>> createTodoList(@RequestBody CreateListRequest request) {
+		if (request == null || request.getName() == null || request.getName().trim().isEmpty()) {
+			DeferredResult<ResponseEntity<TodoList>> badRequest = new DeferredResult<>();
+			badRequest.setResult(ResponseEntity.badRequest().build());
+			return badRequest;
 		}
+		return databaseExecutor.complete(todoRepository.createTodoListAsync(request.getName()),
+				newList -> ResponseEntity.status(HttpStatus.CREATED).body(newList));
 	}
 
 	/**
 	 * Delete a todo list by ID
 	 */
 	@DeleteMapping("/{id}")
-	public ResponseEntity<?> deleteTodoList(@PathVariable("id") long id) {
-		try {
-			boolean deleted = todoService.deleteTodoList(id);
+	public DeferredResult<ResponseEntity<?>> deleteTodoList(@PathVariable("id") long id) {
+		return databaseExecutor.complete(todoRepository.deleteTodoListAsync(id), deleted -> {
 			if (deleted) {
 				return ResponseEntity.noContent().build();
 			} else {
 				return ResponseEntity.notFound().build();
 			}
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-		}
+		});
 	}
 }
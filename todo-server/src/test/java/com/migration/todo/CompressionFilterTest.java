@@ -0,0 +1,183 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+class CompressionFilterTest {
+
+	private static final byte[] LARGE = json(4096);
+	private static final byte[] SMALL = json(100);
+
+	private final CompressionFilter filter = new CompressionFilter();
+
+	@BeforeEach
+	void initFilter() throws ServletException {
+		MockFilterConfig config = new MockFilterConfig();
+		config.addInitParameter(CompressionFilter.MIN_SIZE, "1024");
+		filter.init(config);
+	}
+
+	@Test
+	void compressesLargeBodiesWithAWeakETag() throws Exception {
+		MockHttpServletResponse response = send(gzipRequest(), "application/json", "\"v1\"", LARGE);
+
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("W/\"v1\"", response.getHeader("ETag"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertArrayEquals(LARGE, gunzip(response.getContentAsByteArray()));
+		assertEquals(1, filter.getCompressedCount());
+	}
+
+	@Test
+	void sendsSmallBodiesAsIs() throws Exception {
+		MockHttpServletResponse response = send(gzipRequest(), "application/json", "\"v1\"", SMALL);
+
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(SMALL.length, response.getContentLength());
+		assertArrayEquals(SMALL, response.getContentAsByteArray());
+	}
+
+	@Test
+	void leavesClientsWithoutGzipAlone() throws Exception {
+		MockHttpServletResponse response = send(new MockHttpServletRequest("GET", "/api/lists"),
+				"application/json", "\"v1\"", LARGE);
+
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("\"v1\"", response.getHeader("ETag"));
+		assertArrayEquals(LARGE, response.getContentAsByteArray());
+	}
+
+	@Test
+	void passesOtherContentTypesThrough() throws Exception {
+		MockHttpServletResponse response = send(gzipRequest(), "text/event-stream", null, LARGE);
+
+		assertNull(response.getHeader("Content-Encoding"));
+		assertArrayEquals(LARGE, response.getContentAsByteArray());
+	}
+
+	@Test
+	void reusesCompressedBodyOfAnUnchangedResponse() throws Exception {
+		send(gzipRequest(), "application/json", "\"v1\"", LARGE);
+		MockHttpServletResponse response = send(gzipRequest(), "application/json", "\"v1\"", LARGE);
+
+		assertEquals(1, filter.getCacheHitCount());
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertArrayEquals(LARGE, gunzip(response.getContentAsByteArray()));
+
+		send(gzipRequest(), "application/json", "\"v2\"", LARGE);
+		assertEquals(1, filter.getCacheHitCount());
+	}
+
+	@Test
+	void leavesBodyOfAFailedRequestToErrorHandling() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FilterChain chain = (request, servletResponse) -> {
+			servletResponse.setContentType("application/json");
+			servletResponse.getOutputStream().write(SMALL);
+			throw new ServletException("failed on purpose");
+		};
+
+		assertThrows(ServletException.class, () -> filter.doFilter(gzipRequest(), response, chain));
+		assertEquals(0, response.getContentAsByteArray().length);
+		assertFalse(response.isCommitted());
+	}
+
+	@Test
+	void doesNotCompressNotModified() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(gzipRequest(), response, (request, servletResponse) -> {
+			HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+			httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			httpResponse.setHeader("ETag", "\"v1\"");
+		});
+
+		assertEquals(304, response.getStatus());
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void sendsNoContentLengthForStatusesWithoutABody() throws Exception {
+		for (int status : new int[] { HttpServletResponse.SC_CONTINUE, HttpServletResponse.SC_NO_CONTENT,
+				HttpServletResponse.SC_NOT_MODIFIED }) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(gzipRequest(), response, (request, servletResponse) -> {
+				HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+				httpResponse.setStatus(status);
+				httpResponse.setContentType("application/json");
+				httpResponse.getOutputStream().flush();
+			});
+
+			assertEquals(status, response.getStatus());
+			assertFalse(response.containsHeader("Content-Length"), "Content-Length sent with " + status);
+			assertEquals(0, response.getContentAsByteArray().length);
+		}
+	}
+
+	@Test
+	void parsesAcceptEncoding() {
+		assertTrue(CompressionFilter.acceptsGzip(request("gzip, deflate, br")));
+		assertTrue(CompressionFilter.acceptsGzip(request("br;q=1.0, gzip;q=0.8")));
+		assertTrue(CompressionFilter.acceptsGzip(request("*")));
+		assertFalse(CompressionFilter.acceptsGzip(request("gzip;q=0")));
+		assertFalse(CompressionFilter.acceptsGzip(request("*, gzip;q=0")));
+		assertFalse(CompressionFilter.acceptsGzip(request("identity")));
+	}
+
+	private MockHttpServletResponse send(MockHttpServletRequest request, String contentType, String eTag,
+			byte[] body) throws IOException, ServletException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, (servletRequest, servletResponse) -> {
+			HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+			httpResponse.setContentType(contentType);
+			if (eTag != null) {
+				httpResponse.setHeader("ETag", eTag);
+			}
+			httpResponse.getOutputStream().write(body);
+		});
+		return response;
+	}
+
+	private static MockHttpServletRequest gzipRequest() {
+		return request("gzip");
+	}
+
+	private static MockHttpServletRequest request(String acceptEncoding) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/lists");
+		request.addHeader("Accept-Encoding", acceptEncoding);
+		return request;
+	}
+
+	private static byte[] json(int length) {
+		StringBuilder json = new StringBuilder("[");
+		while (json.length() < length - 1) {
+			json.append('0');
+		}
+		return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConnectionPoolTest {
+
+	@TempDir
+	Path directory;
+
+	private String url;
+	private ConnectionPool pool;
+
+	@BeforeEach
+	void createPool() throws SQLException {
+		url = "jdbc:sqlite:" + directory.resolve("pool.db");
+		pool = new ConnectionPool("test", url, 1, 100, 30000, 2, null);
+		try (Connection connection = pool.borrow(); Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE t (x INTEGER)");
+		}
+	}
+
+	@AfterEach
+	void closePool() {
+		pool.close();
+	}
+
+	@Test
+	void reusesPhysicalConnection() throws SQLException {
+		pool.borrow().close();
+		pool.borrow().close();
+
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	void borrowTimesOutWhileAllConnectionsAreInUse() throws SQLException {
+		try (Connection held = pool.borrow()) {
+			SQLException e = assertThrows(SQLException.class, pool::borrow);
+			assertTrue(e.getMessage().contains("Timed out"));
+			assertEquals(1, pool.getTimeoutCount());
+		}
+		pool.borrow().close();
+	}
+
+	@Test
+	void closingTwiceReturnsConnectionOnce() throws SQLException {
+		Connection connection = pool.borrow();
+		connection.close();
+		connection.close();
+
+		assertTrue(connection.isClosed());
+		assertThrows(SQLException.class, connection::createStatement);
+		assertEquals(0, pool.getActiveCount());
+		pool.borrow().close();
+	}
+
+	@Test
+	void unwrapNeverExposesPhysicalConnection() throws SQLException {
+		try (Connection connection = pool.borrow()) {
+			assertSame(connection, connection.unwrap(Connection.class));
+			assertFalse(connection.isWrapperFor(org.sqlite.SQLiteConnection.class));
+			assertThrows(SQLException.class, () -> connection.unwrap(org.sqlite.SQLiteConnection.class));
+		}
+	}
+
+	@Test
+	void rollsBackTransactionLeftOpen() throws SQLException {
+		try (Connection connection = pool.borrow(); Statement statement = connection.createStatement()) {
+			connection.setAutoCommit(false);
+			statement.execute("INSERT INTO t VALUES (1)");
+		}
+
+		try (Connection connection = pool.borrow();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM t")) {
+			assertTrue(connection.getAutoCommit());
+			resultSet.next();
+			assertEquals(0, resultSet.getInt(1));
+		}
+	}
+
+	// ==================== Statement cache ====================
+
+	@Test
+	void reusesStatementsAcrossBorrows() throws SQLException {
+		for (int i = 0; i < 3; i++) {
+			try (Connection connection = pool.borrow();
+					PreparedStatement statement = connection.prepareStatement("INSERT INTO t (x) VALUES (?)")) {
+				statement.setInt(1, i);
+				statement.executeUpdate();
+			}
+		}
+
+		assertEquals(1, pool.getStatementCacheMisses());
+		assertEquals(2, pool.getStatementCacheHits());
+	}
+
+	@Test
+	void clearsParametersOfReturnedStatements() throws SQLException {
+		try (Connection connection = pool.borrow()) {
+			try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+				statement.setInt(1, 5);
+			}
+			try (PreparedStatement statement = connection.prepareStatement("SELECT ?");
+					ResultSet resultSet = statement.executeQuery()) {
+				resultSet.next();
+				assertNull(resultSet.getObject(1));
+			}
+		}
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedStatements() throws SQLException {
+		try (Connection connection = pool.borrow()) {
+			// "SELECT 2" is the least recently used one when "SELECT 3" comes in
+			for (String sql : new String[] { "SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3", "SELECT 1" }) {
+				connection.prepareStatement(sql).close();
+			}
+		}
+
+		assertEquals(1, pool.getStatementCacheEvictions());
+		assertEquals(3, pool.getStatementCacheMisses());
+		assertEquals(2, pool.getStatementCacheHits());
+	}
+
+	@Test
+	void doesNotCacheVariableInLists() throws SQLException {
+		try (Connection connection = pool.borrow()) {
+			connection.prepareStatement("SELECT x FROM t WHERE x IN (?, ?)").close();
+			connection.prepareStatement("SELECT x FROM t WHERE x IN (?, ?)").close();
+		}
+
+		assertEquals(0, pool.getStatementCacheHits());
+	}
+
+	@Test
+	void givesNestedUseOfTheSameSqlItsOwnStatement() throws SQLException {
+		try (Connection connection = pool.borrow();
+				PreparedStatement outer = connection.prepareStatement("SELECT ?");
+				PreparedStatement inner = connection.prepareStatement("SELECT ?")) {
+			outer.setInt(1, 1);
+			inner.setInt(1, 2);
+			try (ResultSet first = outer.executeQuery(); ResultSet second = inner.executeQuery()) {
+				first.next();
+				second.next();
+				assertEquals(1, first.getInt(1));
+				assertEquals(2, second.getInt(1));
+			}
+		}
+	}
+
+	@Test
+	void closesStatementsLeftOpenWhenTheConnectionIsReturned() throws SQLException {
+		PreparedStatement leaked;
+		try (Connection connection = pool.borrow()) {
+			leaked = connection.prepareStatement("SELECT 1");
+		}
+
+		assertTrue(leaked.isClosed());
+		try (Connection connection = pool.borrow();
+				PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+			assertFalse(statement.isClosed());
+		}
+	}
+
+	@Test
+	void rejectsBorrowingOnceClosed() {
+		pool.close();
+
+		assertThrows(SQLException.class, pool::borrow);
+	}
+}
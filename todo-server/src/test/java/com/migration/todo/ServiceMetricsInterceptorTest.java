@@ -0,0 +1,66 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+
+import io.micrometer.core.instrument.Timer;
+
+class ServiceMetricsInterceptorTest {
+
+	@TempDir
+	Path directory;
+
+	private TodoRepository repository;
+
+	@BeforeEach
+	void initializeDatabase() {
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.setDbFile(directory.resolve("todo.db").toString());
+		TodoDatabase.initializeDatabase(settings);
+		// Proxied as in applicationContext.xml
+		ProxyFactory factory = new ProxyFactory(new TodoRepository());
+		factory.setProxyTargetClass(true);
+		factory.addAdvice(new ServiceMetricsInterceptor());
+		repository = (TodoRepository) factory.getProxy();
+	}
+
+	@AfterEach
+	void shutdown() {
+		TodoDatabase.shutdown();
+	}
+
+	@Test
+	void recordsDatabaseErrorsHandledByTheRepositoryAsErrors() throws SQLException {
+		long successes = count("getTodoById", "success");
+		long errors = count("getTodoById", "error");
+
+		TodoItem item = repository.createTodo(repository.createTodoList("Groceries").getId(), "milk", "", false);
+		assertNotNull(repository.getTodoById(item.getId()));
+		TodoDatabase.getWriteQueue().submit(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				return statement.executeUpdate("ALTER TABLE todo_items RENAME TO todo_items_gone");
+			}
+		});
+		assertNull(repository.getTodoById(item.getId() + 1));
+
+		assertEquals(successes + 1, count("getTodoById", "success"));
+		assertEquals(errors + 1, count("getTodoById", "error"));
+	}
+
+	private static long count(String method, String outcome) {
+		Timer timer = TodoMetrics.getRegistry().find("todo.service.calls")
+				.tag("method", method).tag("outcome", outcome).timer();
+		return timer == null ? 0 : timer.count();
+	}
+}
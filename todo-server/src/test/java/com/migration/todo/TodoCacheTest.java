@@ -0,0 +1,107 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TodoCacheTest {
+
+	private final TodoCache cache = new TodoCache(2, 10);
+
+	@Test
+	void dropsFillLoadedBeforeAWrite() {
+		TodoItem item = new TodoItem(1, 7, "milk", "", false);
+		long generation = cache.generation();
+		cache.itemWritten(new TodoItem(1, 7, "milk", "", true));
+
+		cache.putItems(7, Collections.singletonList(item), generation);
+		cache.putItem(item, generation);
+		cache.putAllLists(Collections.singletonList(new TodoList(7, "Groceries")), generation);
+
+		assertNull(cache.getItems(7));
+		assertTrue(cache.getItem(1).isCompleted());
+		assertNull(cache.getAllLists());
+	}
+
+	@Test
+	void writesInvalidateTheListAndItsCounts() {
+		cache.putItems(7, Arrays.asList(new TodoItem(1, 7, "milk", "", false)), cache.generation());
+		cache.putAllLists(Arrays.asList(new TodoList(7, "Groceries")), cache.generation());
+
+		cache.itemDeleted(1, 7);
+
+		assertNull(cache.getItems(7));
+		assertNull(cache.getItem(1));
+		assertNull(cache.getAllLists());
+	}
+
+	@Test
+	void listDeletedDropsItsItems() {
+		cache.putItem(new TodoItem(1, 7, "milk", "", false), cache.generation());
+		cache.putItem(new TodoItem(2, 8, "dishes", "", false), cache.generation());
+
+		cache.listDeleted(7);
+
+		assertNull(cache.getItem(1));
+		assertNotNull(cache.getItem(2));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedList() {
+		List<TodoItem> none = Collections.emptyList();
+		cache.putItems(1, none, cache.generation());
+		cache.putItems(2, none, cache.generation());
+		cache.getItems(1);
+		cache.putItems(3, none, cache.generation());
+
+		assertNotNull(cache.getItems(1));
+		assertNull(cache.getItems(2));
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	void boundsTheItemsOfAllCachedListsTogether() {
+		TodoCache cache = new TodoCache(10, 10);
+		cache.putItems(1, items(1, 4), cache.generation());
+		cache.putItems(2, items(2, 4), cache.generation());
+		cache.getItems(1);
+		cache.putItems(3, items(3, 4), cache.generation());
+
+		assertNull(cache.getItems(2));
+		assertEquals(2, cache.getCachedItemListCount());
+		assertEquals(8, cache.getCachedListItemCount());
+		assertEquals(1, cache.getEvictionCount());
+
+		// Refilling a list replaces its items rather than adding to them
+		cache.putItems(3, items(3, 6), cache.generation());
+		assertEquals(10, cache.getCachedListItemCount());
+		assertNotNull(cache.getItems(1));
+		cache.itemDeleted(1, 1);
+		assertEquals(6, cache.getCachedListItemCount());
+	}
+
+	@Test
+	void returnsCopies() {
+		cache.putItems(7, Arrays.asList(new TodoItem(1, 7, "milk", "", false)), cache.generation());
+
+		cache.getItems(7).clear();
+
+		assertEquals(1, cache.getItems(7).size());
+	}
+
+	private static List<TodoItem> items(long listId, int count) {
+		List<TodoItem> items = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			items.add(new TodoItem(listId * 100 + i, listId, "item " + i, "", false));
+		}
+		return items;
+	}
+}
@@ -0,0 +1,71 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TodoChangeFeedTest {
+
+	private static final long LIST_A = 1;
+	private static final long LIST_B = 2;
+
+	private final TodoChangeFeed feed = new TodoChangeFeed(3);
+
+	@Test
+	void trafficOnOtherListsDoesNotResetAQuietList() {
+		feed.publish(TodoChangeEvent.Type.CREATED, LIST_A, 10, null);
+		// A subscriber that has seen list A's event
+		long position = feed.getLastSequence();
+
+		// Pushes list A's event and everything up to the position out of the buffer
+		for (int i = 0; i < 10; i++) {
+			feed.publish(TodoChangeEvent.Type.CREATED, LIST_B, 20 + i, null);
+		}
+		TodoChangeBatch quiet = feed.getChangesAfter(LIST_A, position, 100);
+		assertFalse(quiet.isReset());
+		assertTrue(quiet.getEvents().isEmpty());
+		assertEquals(feed.getLastSequence(), quiet.getLastSequence());
+
+		feed.publish(TodoChangeEvent.Type.UPDATED, LIST_A, 10, null);
+		TodoChangeBatch next = feed.getChangesAfter(LIST_A, position, 100);
+		assertFalse(next.isReset());
+		assertEquals(1, next.getEvents().size());
+		assertEquals(10, next.getEvents().get(0).getItemId());
+	}
+
+	@Test
+	void resetsAListWhoseOwnEventsWereDropped() {
+		long position = feed.getLastSequence();
+		feed.publish(TodoChangeEvent.Type.CREATED, LIST_A, 10, null);
+		for (int i = 0; i < 3; i++) {
+			feed.publish(TodoChangeEvent.Type.CREATED, LIST_B, 20 + i, null);
+		}
+
+		assertTrue(feed.getChangesAfter(LIST_A, position, 100).isReset());
+		assertFalse(feed.getChangesAfter(LIST_B, position, 100).isReset());
+	}
+
+	@Test
+	void resetsPositionsFromBeforeTheFeedStarted() {
+		long position = feed.getLastSequence();
+
+		assertTrue(feed.getChangesAfter(LIST_A, position - 1, 100).isReset());
+		assertTrue(feed.getChangesAfter(LIST_A, position + 1, 100).isReset());
+		assertFalse(feed.getChangesAfter(LIST_A, position, 100).isReset());
+	}
+
+	@Test
+	void pagesThroughEventsOfAList() {
+		long position = feed.getLastSequence();
+		feed.publish(TodoChangeEvent.Type.CREATED, LIST_A, 10, null);
+		feed.publish(TodoChangeEvent.Type.CREATED, LIST_A, 11, null);
+
+		TodoChangeBatch first = feed.getChangesAfter(LIST_A, position, 1);
+		assertEquals(10, first.getEvents().get(0).getItemId());
+		TodoChangeBatch second = feed.getChangesAfter(LIST_A, first.getLastSequence(), 1);
+		assertEquals(11, second.getEvents().get(0).getItemId());
+		assertEquals(feed.getLastSequence(), second.getLastSequence());
+	}
+}
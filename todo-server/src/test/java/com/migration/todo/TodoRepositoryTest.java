@@ -0,0 +1,378 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TodoRepositoryTest {
+
+	@TempDir
+	Path directory;
+
+	private DatabaseSettings settings;
+	private TodoRepository repository;
+	private TodoList list;
+
+	@BeforeEach
+	void initializeDatabase() {
+		settings = new DatabaseSettings();
+		settings.setDbFile(directory.resolve("todo.db").toString());
+		TodoDatabase.initializeDatabase(settings);
+		repository = new TodoRepository();
+		list = repository.createTodoList("Groceries");
+	}
+
+	@AfterEach
+	void shutdown() {
+		TodoDatabase.shutdown();
+	}
+
+	// ==================== Cache ====================
+
+	@Test
+	void cachedItemsFollowWrites() {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		assertEquals(1, repository.getTodoItemsByListId(list.getId()).size());
+		long hits = repository.getCache().getHitCount();
+		repository.getTodoItemsByListId(list.getId());
+		assertEquals(hits + 1, repository.getCache().getHitCount());
+
+		TodoItem bread = repository.createTodo(list.getId(), "bread", "", false);
+		repository.updateTodo(milk.getId(), "oat milk", "", false);
+		repository.toggleTodoCompletion(bread.getId());
+		List<TodoItem> items = repository.getTodoItemsByListId(list.getId());
+		assertEquals("oat milk", items.get(0).getTitle());
+		assertTrue(items.get(1).isCompleted());
+		assertEquals("oat milk", repository.getTodoById(milk.getId()).getTitle());
+
+		repository.deleteTodo(milk.getId());
+		assertEquals(Arrays.asList(bread.getId()), ids(repository.getTodoItemsByListId(list.getId())));
+		assertNull(repository.getTodoById(milk.getId()));
+	}
+
+	@Test
+	void deletingAListDropsItsCachedItems() {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		repository.getTodoItemsByListId(list.getId());
+		repository.getTodoById(milk.getId());
+
+		assertTrue(repository.deleteTodoList(list.getId()));
+
+		assertTrue(repository.getTodoItemsByListId(list.getId()).isEmpty());
+		assertNull(repository.getTodoById(milk.getId()));
+		assertTrue(repository.getAllTodoLists().isEmpty());
+	}
+
+	// ==================== Pages ====================
+
+	@Test
+	void pagesByCursorAndByPositionAgree() {
+		TodoList other = repository.createTodoList("Chores");
+		for (int i = 0; i < 10; i++) {
+			repository.createTodo(list.getId(), "item " + i, "", false);
+			repository.createTodo(other.getId(), "chore " + i, "", false);
+		}
+
+		List<TodoItem> walked = new ArrayList<>();
+		TodoItemPage page = repository.getTodoItemsPage(list.getId(), 0, 4);
+		walked.addAll(page.getItems());
+		while (page.getNextCursor() != null) {
+			page = repository.getTodoItemsPage(list.getId(), page.getNextCursor(), 4);
+			walked.addAll(page.getItems());
+		}
+		assertEquals(10, walked.size());
+
+		TodoItemPage jumped = repository.getTodoItemsPageAt(list.getId(), 4, 4);
+		assertEquals(ids(walked.subList(4, 8)), ids(jumped.getItems()));
+		assertEquals(walked.get(7).getId(), jumped.getNextCursor());
+		TodoItemPage last = repository.getTodoItemsPageAt(list.getId(), 8, 4);
+		assertEquals(ids(walked.subList(8, 10)), ids(last.getItems()));
+		assertNull(last.getNextCursor());
+		assertTrue(repository.getTodoItemsPageAt(list.getId(), 10, 4).getItems().isEmpty());
+	}
+
+	@Test
+	void firstPageCarriesTheVersionToSyncFrom() {
+		for (int i = 0; i < 5; i++) {
+			repository.createTodo(list.getId(), "item " + i, "", false);
+		}
+
+		TodoItemPage first = repository.getTodoItemsPage(list.getId(), 0, 2);
+		assertTrue(first.getVersion() > 0);
+		assertEquals(0, repository.getTodoItemsPage(list.getId(), first.getNextCursor(), 2).getVersion());
+		assertTrue(repository.getChangesSince(list.getId(), first.getVersion(), false, 100).getItems().isEmpty());
+
+		TodoItem added = repository.createTodo(list.getId(), "late", "", false);
+		TodoItemChanges changes = repository.getChangesSince(list.getId(), first.getVersion(), false, 100);
+		assertEquals(Arrays.asList(added.getId()), ids(changes.getItems()));
+	}
+
+	// ==================== Delta sync ====================
+
+	@Test
+	void changesSinceAVersionHoldWritesAndDeletions() {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		TodoItem bread = repository.createTodo(list.getId(), "bread", "", false);
+		TodoItemChanges full = repository.getChangesSince(list.getId(), 0, false, 100);
+		assertEquals(2, full.getItems().size());
+		assertFalse(full.isHasMore());
+
+		repository.updateTodo(milk.getId(), "oat milk", "", false);
+		repository.deleteTodo(bread.getId());
+		TodoItem eggs = repository.createTodo(list.getId(), "eggs", "", false);
+		repository.createTodo(repository.createTodoList("Chores").getId(), "dishes", "", false);
+
+		TodoItemChanges delta = repository.getChangesSince(list.getId(), full.getVersion(), false, 100);
+		assertEquals(Arrays.asList(milk.getId(), eggs.getId()), ids(delta.getItems()));
+		assertEquals("oat milk", delta.getItems().get(0).getTitle());
+		assertEquals(Arrays.asList(bread.getId()), delta.getDeletedIds());
+		assertTrue(delta.getVersion() > full.getVersion());
+
+		TodoItemChanges none = repository.getChangesSince(list.getId(), delta.getVersion(), false, 100);
+		assertTrue(none.getItems().isEmpty());
+		assertTrue(none.getDeletedIds().isEmpty());
+		assertEquals(delta.getVersion(), none.getVersion());
+	}
+
+	@Test
+	void fullSyncContinuesInPages() {
+		for (int i = 0; i < 5; i++) {
+			repository.createTodo(list.getId(), "item " + i, "", false);
+		}
+
+		List<TodoItem> items = new ArrayList<>();
+		TodoItemChanges changes;
+		long version = 0;
+		do {
+			changes = repository.getChangesSince(list.getId(), version, version > 0, 2);
+			items.addAll(changes.getItems());
+			version = changes.getVersion();
+			assertTrue(changes.isFullSync());
+		} while (changes.isHasMore());
+
+		assertEquals(5, items.size());
+		TodoItemChanges delta = repository.getChangesSince(list.getId(), version, false, 100);
+		assertFalse(delta.isFullSync());
+		assertTrue(delta.getItems().isEmpty());
+	}
+
+	@Test
+	void asksForAFullSyncOncePrunedTombstonesMayBeMissed() throws InterruptedException {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		repository.createTodo(list.getId(), "bread", "", false);
+		long version = repository.getChangesSince(list.getId(), 0, false, 100).getVersion();
+		repository.deleteTodo(milk.getId());
+		Thread.sleep(5);
+
+		// Startup prunes every tombstone older than the retention period
+		settings.setTombstoneRetentionHours(0);
+		TodoDatabase.initializeDatabase(settings);
+		repository = new TodoRepository();
+		assertTrue(TodoDatabase.getTombstoneHorizon() > version);
+
+		TodoItemChanges reset = repository.getChangesSince(list.getId(), version, false, 100);
+		assertTrue(reset.isReset());
+		TodoItemChanges full = repository.getChangesSince(list.getId(), 0, false, 100);
+		assertFalse(full.isReset());
+		assertEquals(1, full.getItems().size());
+		assertTrue(full.getVersion() >= TodoDatabase.getTombstoneHorizon());
+		assertFalse(repository.getChangesSince(list.getId(), full.getVersion(), false, 100).isReset());
+	}
+
+	// ==================== Search ====================
+
+	@Test
+	void searchIndexFollowsWrites() {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "semi-skimmed", false);
+		TodoItem bread = repository.createTodo(list.getId(), "bread", "for the milk toast", false);
+		TodoList chores = repository.createTodoList("Chores");
+		repository.createTodo(chores.getId(), "buy milk", "", false);
+
+		assertEquals(3, search("milk", 0).size());
+		assertEquals(Arrays.asList(milk.getId(), bread.getId()), search("milk", list.getId()));
+		// The last word also matches as a prefix
+		assertEquals(Arrays.asList(milk.getId()), search("semi-sk", list.getId()));
+
+		repository.updateTodo(milk.getId(), "oat drink", "", false);
+		assertEquals(Arrays.asList(bread.getId()), search("milk", list.getId()));
+		assertEquals(Arrays.asList(milk.getId()), search("oat", list.getId()));
+
+		repository.deleteTodo(bread.getId());
+		assertTrue(search("milk", list.getId()).isEmpty());
+
+		repository.deleteTodoList(chores.getId());
+		assertTrue(search("milk", 0).isEmpty());
+	}
+
+	private List<Long> search(String query, long listId) {
+		List<Long> ids = new ArrayList<>();
+		for (TodoSearchResult result : repository.searchTodos(query, listId, 0, 20).getResults()) {
+			ids.add(result.getItem().getId());
+		}
+		return ids;
+	}
+
+	// ==================== List counts ====================
+
+	@Test
+	void listCountsFollowItemWrites() {
+		TodoList chores = repository.createTodoList("Chores");
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		TodoItem bread = repository.createTodo(list.getId(), "bread", "", true);
+		repository.createTodos(Arrays.asList(
+				new TodoItem(0, list.getId(), "eggs", "", false),
+				new TodoItem(0, chores.getId(), "dishes", "", true)));
+		assertCounts(list, 3, 1);
+		assertCounts(chores, 1, 1);
+
+		repository.toggleTodoCompletion(milk.getId());
+		assertCounts(list, 3, 2);
+		repository.updateTodo(bread.getId(), "bread", "", false);
+		assertCounts(list, 3, 1);
+		repository.deleteTodo(milk.getId());
+		assertCounts(list, 2, 0);
+		repository.toggleTodos(Arrays.asList(bread.getId()));
+		assertCounts(list, 2, 1);
+		assertCounts(chores, 1, 1);
+	}
+
+	@Test
+	void deletingAListDeletesItsItems() throws SQLException {
+		repository.createTodo(list.getId(), "milk", "", false);
+		TodoList chores = repository.createTodoList("Chores");
+		repository.createTodo(chores.getId(), "dishes", "", false);
+
+		assertTrue(repository.deleteTodoList(list.getId()));
+		assertFalse(repository.deleteTodoList(list.getId()));
+
+		try (Connection connection = TodoDatabase.getReadConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT list_id FROM todo_items")) {
+			assertTrue(resultSet.next());
+			assertEquals(chores.getId(), resultSet.getLong(1));
+			assertFalse(resultSet.next());
+		}
+		// The deleted items reach delta sync clients as tombstones
+		assertEquals(1, repository.getChangesSince(list.getId(), 0, false, 100).getDeletedIds().size());
+		assertCounts(chores, 1, 0);
+	}
+
+	@Test
+	void deletesItemsOfMissingListsOnlyOnce() throws SQLException {
+		assertEquals(1, userVersion());
+		insertItemOfMissingList("left over");
+		TodoDatabase.getWriteQueue().submit(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				return statement.execute("PRAGMA user_version = 0");
+			}
+		});
+
+		TodoDatabase.initializeDatabase(settings);
+		assertEquals(0, itemsOfMissingLists());
+		assertEquals(1, userVersion());
+
+		// Already migrated, so startup no longer scans for them
+		insertItemOfMissingList("inserted later");
+		TodoDatabase.initializeDatabase(settings);
+		assertEquals(1, itemsOfMissingLists());
+	}
+
+	private static void insertItemOfMissingList(String title) throws SQLException {
+		TodoDatabase.getWriteQueue().submit(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				return statement.executeUpdate("INSERT INTO todo_items (list_id, title) VALUES (999, '" + title + "')");
+			}
+		});
+	}
+
+	private static int itemsOfMissingLists() throws SQLException {
+		return queryInt("SELECT count(*) FROM todo_items WHERE list_id NOT IN (SELECT id FROM todo_lists)");
+	}
+
+	private static int userVersion() throws SQLException {
+		return queryInt("PRAGMA user_version");
+	}
+
+	private static int queryInt(String sql) throws SQLException {
+		try (Connection connection = TodoDatabase.getReadConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(sql)) {
+			assertTrue(resultSet.next());
+			return resultSet.getInt(1);
+		}
+	}
+
+	private void assertCounts(TodoList expected, int itemCount, int completedCount) {
+		for (TodoList stored : repository.getAllTodoLists()) {
+			if (stored.getId() == expected.getId()) {
+				assertEquals(itemCount, stored.getItemCount(), "items of " + stored.getName());
+				assertEquals(completedCount, stored.getCompletedCount(), "completed of " + stored.getName());
+				return;
+			}
+		}
+		fail("No list " + expected.getName());
+	}
+
+	// ==================== Batch operations ====================
+
+	@Test
+	void createTodosReturnsEachRowAsInserted() {
+		TodoList other = repository.createTodoList("Chores");
+		List<TodoItem> created = repository.createTodos(Arrays.asList(
+				new TodoItem(0, list.getId(), "milk", "2%", false),
+				new TodoItem(0, other.getId(), "dishes", "", true),
+				new TodoItem(0, list.getId(), "bread", null, false)));
+
+		assertEquals(3, created.size());
+		for (TodoItem item : created) {
+			TodoItem stored = repository.getTodoById(item.getId());
+			assertEquals(item.getListId(), stored.getListId());
+			assertEquals(item.getTitle(), stored.getTitle());
+			assertEquals(item.isCompleted(), stored.isCompleted());
+		}
+		assertEquals("dishes", created.get(1).getTitle());
+		assertTrue(created.get(0).getId() < created.get(2).getId());
+	}
+
+	@Test
+	void batchOperationsReportEachItem() {
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		TodoItem bread = repository.createTodo(list.getId(), "bread", "", false);
+
+		List<TodoItem> toggled = repository.toggleTodos(Arrays.asList(milk.getId(), 999L));
+		assertTrue(toggled.get(0).isCompleted());
+		assertNull(toggled.get(1));
+
+		List<TodoItem> updated = repository.updateTodos(Arrays.asList(
+				new TodoItem(bread.getId(), list.getId(), "rye bread", "", false)));
+		assertEquals("rye bread", updated.get(0).getTitle());
+
+		assertEquals(Arrays.asList(true, false), repository.deleteTodos(Arrays.asList(milk.getId(), 999L)));
+		assertNull(repository.getTodoById(milk.getId()));
+		assertFalse(repository.getTodoById(bread.getId()).isCompleted());
+	}
+
+	private static List<Long> ids(List<TodoItem> items) {
+		List<Long> ids = new ArrayList<>();
+		for (TodoItem item : items) {
+			ids.add(item.getId());
+		}
+		return ids;
+	}
+}
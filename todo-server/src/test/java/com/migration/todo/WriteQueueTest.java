@@ -0,0 +1,219 @@
+package com.migration.todo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteQueueTest {
+
+	@TempDir
+	Path directory;
+
+	private WriteQueue queue;
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void initializeDatabase() throws SQLException {
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.setDbFile(directory.resolve("todo.db").toString());
+		settings.setWriteBatchDelayMillis(20);
+		settings.setWriteTimeoutMillis(500);
+		TodoDatabase.initializeDatabase(settings);
+		queue = TodoDatabase.getWriteQueue();
+		queue.submit(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				return statement.execute("CREATE TABLE t (x INTEGER)");
+			}
+		});
+	}
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		TodoDatabase.shutdown();
+	}
+
+	@Test
+	void groupsWritesQueuedTogetherIntoOneCommit() throws Exception {
+		CompletableFuture<Void> blocker = blockWriter();
+		long batches = queue.getBatchCount();
+		long tasks = queue.getTaskCount();
+		List<CompletableFuture<Integer>> writes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			int x = i;
+			writes.add(queue.submitAsync(connection -> insert(connection, x)));
+		}
+		release.countDown();
+
+		blocker.get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<Integer> write : writes) {
+			assertEquals(1, write.get(5, TimeUnit.SECONDS));
+		}
+		// The blocker's batch, then one batch for all ten writes
+		assertEquals(batches + 2, queue.getBatchCount());
+		assertEquals(tasks + 11, queue.getTaskCount());
+		assertEquals(10, count());
+	}
+
+	@Test
+	void rollsBackOnlyTheFailingWriteOfABatch() throws Exception {
+		CompletableFuture<Void> blocker = blockWriter();
+		long tasks = queue.getTaskCount();
+		AtomicBoolean firstCommitted = new AtomicBoolean();
+		AtomicBoolean failedCommitted = new AtomicBoolean();
+		SQLException failure = new SQLException("failed on purpose");
+		CompletableFuture<Integer> first = queue.submitAsync(connection -> {
+			queue.afterCommit(() -> firstCommitted.set(true));
+			return insert(connection, 1);
+		});
+		CompletableFuture<Integer> failed = queue.submitAsync(connection -> {
+			queue.afterCommit(() -> failedCommitted.set(true));
+			insert(connection, 2);
+			throw failure;
+		});
+		CompletableFuture<Integer> last = queue.submitAsync(connection -> insert(connection, 3));
+		release.countDown();
+
+		blocker.get(5, TimeUnit.SECONDS);
+		assertEquals(1, first.get(5, TimeUnit.SECONDS));
+		assertEquals(1, last.get(5, TimeUnit.SECONDS));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+		assertSame(failure, e.getCause());
+		assertTrue(firstCommitted.get());
+		assertFalse(failedCommitted.get());
+		assertEquals(2, count());
+		assertEquals(0, count("x = 2"));
+		// Counted once their callers are released: the blocker and two of the three writes
+		assertEquals(tasks + 3, queue.getTaskCount());
+		assertEquals(1, queue.getFailedTaskCount());
+	}
+
+	@Test
+	void runsAfterCommitActionsBeforeReleasingTheCaller() throws SQLException {
+		AtomicBoolean committed = new AtomicBoolean();
+		queue.submit(connection -> {
+			queue.afterCommit(() -> committed.set(true));
+			return insert(connection, 1);
+		});
+
+		assertTrue(committed.get());
+	}
+
+	@Test
+	void dropsWriteWhoseCallerTimedOutBeforeItStarted() throws Exception {
+		CompletableFuture<Void> blocker = blockWriter();
+		long batches = queue.getBatchCount();
+		long tasks = queue.getTaskCount();
+		AtomicBoolean executed = new AtomicBoolean();
+
+		SQLException e = assertThrows(SQLException.class, () -> queue.submit(connection -> {
+			executed.set(true);
+			return insert(connection, 1);
+		}));
+		assertTrue(e.getMessage().contains("Timed out"));
+
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+		// Queued behind the blocker, so it reached the writer only after being dropped
+		queue.submit(connection -> insert(connection, 2));
+		assertFalse(executed.get());
+		assertEquals(0, count("x = 1"));
+		// The dropped write counts neither as a task nor as a failure
+		assertEquals(tasks + 2, queue.getTaskCount());
+		assertEquals(batches + 2, queue.getBatchCount());
+		assertEquals(0, queue.getFailedTaskCount());
+	}
+
+	@Test
+	void dropsAsyncWriteNotStartedWithinTheSubmitTimeout() throws Exception {
+		CompletableFuture<Void> blocker = blockWriter();
+		CompletableFuture<Integer> queued = queue.submitAsync(connection -> insert(connection, 1));
+
+		Thread.sleep(600);
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause().getMessage().contains("dropped"));
+		assertEquals(0, count("x = 1"));
+	}
+
+	@Test
+	void rejectsNestedSubmit() {
+		assertThrows(IllegalStateException.class,
+				() -> queue.submit(connection -> queue.submit(nested -> insert(nested, 1))));
+	}
+
+	@Test
+	void failsQueuedAndLaterWritesOnShutdown() throws Exception {
+		blockWriter();
+		CompletableFuture<Integer> queued = queue.submitAsync(connection -> insert(connection, 1));
+
+		queue.shutdown();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(SQLException.class, e.getCause());
+		assertThrows(SQLException.class, () -> queue.submit(connection -> insert(connection, 2)));
+	}
+
+	/**
+	 * Occupy the writer with a task that waits for the release latch, so that
+	 * writes submitted meanwhile are queued for the next batch.
+	 */
+	private CompletableFuture<Void> blockWriter() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CompletableFuture<Void> blocker = queue.submitAsync(connection -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new SQLException("Interrupted while blocking the writer", e);
+			}
+			return null;
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return blocker;
+	}
+
+	private static int insert(Connection connection, int x) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO t (x) VALUES (?)")) {
+			statement.setInt(1, x);
+			return statement.executeUpdate();
+		}
+	}
+
+	private static int count() throws SQLException {
+		return count("1");
+	}
+
+	private static int count(String condition) throws SQLException {
+		try (Connection connection = TodoDatabase.getReadConnection();
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM t WHERE " + condition)) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.migration.todo.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.migration.todo.DatabaseExecutor;
+import com.migration.todo.DatabaseSettings;
+import com.migration.todo.TodoDatabase;
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoList;
+import com.migration.todo.TodoRepository;
+
+/**
+ * ETag / If-None-Match handling of the list and item collection endpoints.
+ */
+class ConditionalGetTest {
+
+	@TempDir
+	Path directory;
+
+	private TodoRepository repository;
+	private DatabaseExecutor executor;
+	private TodoListController listController;
+	private TodoItemController itemController;
+	private TodoList list;
+
+	@BeforeEach
+	void initializeDatabase() {
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.setDbFile(directory.resolve("todo.db").toString());
+		TodoDatabase.initializeDatabase(settings);
+		repository = new TodoRepository();
+		executor = new DatabaseExecutor(settings);
+		listController = new TodoListController(repository, executor);
+		itemController = new TodoItemController(repository, executor);
+		list = repository.createTodoList("Groceries");
+	}
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdown();
+		TodoDatabase.shutdown();
+	}
+
+	@Test
+	void answersNotModifiedForTheCurrentTag() throws InterruptedException {
+		String eTag = await(listController.getAllTodoLists(get(null))).getHeaders().getETag();
+		assertNotNull(eTag);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		assertNull(listController.getAllTodoLists(get(eTag, response)));
+		assertEquals(304, response.getStatus());
+		assertEquals(eTag, response.getHeader("ETag"));
+	}
+
+	@Test
+	void itemWriteChangesTheTagsOfItsListAndOfAllLists() throws InterruptedException {
+		TodoList other = repository.createTodoList("Chores");
+		String listsTag = await(listController.getAllTodoLists(get(null))).getHeaders().getETag();
+		String itemsTag = itemsETag(list.getId());
+		String otherTag = itemsETag(other.getId());
+
+		repository.createTodo(list.getId(), "milk", "", false);
+
+		// Item counts are part of the lists, so their tag changes too
+		ResponseEntity<List<TodoList>> lists = await(listController.getAllTodoLists(get(listsTag)));
+		assertNotEquals(listsTag, lists.getHeaders().getETag());
+		assertEquals(1, lists.getBody().get(0).getItemCount());
+		ResponseEntity<List<TodoItem>> items = await(itemController.getTodoItemsByListId(list.getId(), get(itemsTag)));
+		assertEquals(1, items.getBody().size());
+		assertNull(itemController.getTodoItemsByListId(other.getId(), get(otherTag)));
+	}
+
+	@Test
+	void acceptsWeakFormOfTheTag() throws InterruptedException {
+		String eTag = itemsETag(list.getId());
+
+		// As sent back by clients that received the gzipped response
+		assertNull(itemController.getTodoItemsByListId(list.getId(), get("W/" + eTag)));
+	}
+
+	private String itemsETag(long listId) throws InterruptedException {
+		return await(itemController.getTodoItemsByListId(listId, get(null))).getHeaders().getETag();
+	}
+
+	private static ServletWebRequest get(String ifNoneMatch) {
+		return get(ifNoneMatch, new MockHttpServletResponse());
+	}
+
+	private static ServletWebRequest get(String ifNoneMatch, MockHttpServletResponse response) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api");
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		return new ServletWebRequest(request, response);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T await(DeferredResult<T> deferred) throws InterruptedException {
+		assertNotNull(deferred, "Expected a full response");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!deferred.hasResult()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("No result within 5 seconds");
+			}
+			Thread.sleep(5);
+		}
+		return (T) deferred.getResult();
+	}
+}
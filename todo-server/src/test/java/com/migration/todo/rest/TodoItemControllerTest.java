@@ -0,0 +1,123 @@
+package com.migration.todo.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.migration.todo.DatabaseExecutor;
+import com.migration.todo.DatabaseSettings;
+import com.migration.todo.TodoDatabase;
+import com.migration.todo.TodoItem;
+import com.migration.todo.TodoList;
+import com.migration.todo.TodoRepository;
+import com.migration.todo.WriteQueue;
+
+/**
+ * Writes complete from the write queue without holding executor threads.
+ */
+class TodoItemControllerTest {
+
+	@TempDir
+	Path directory;
+
+	private TodoRepository repository;
+	private DatabaseExecutor executor;
+	private TodoItemController controller;
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void initializeDatabase() {
+		DatabaseSettings settings = new DatabaseSettings();
+		settings.setDbFile(directory.resolve("todo.db").toString());
+		settings.setAsyncThreads(1);
+		settings.setAsyncQueueCapacity(1);
+		TodoDatabase.initializeDatabase(settings);
+		repository = new TodoRepository();
+		executor = new DatabaseExecutor(settings);
+		controller = new TodoItemController(repository, executor);
+	}
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		executor.shutdown();
+		TodoDatabase.shutdown();
+	}
+
+	@Test
+	void writeBurstNeitherBlocksReadsNorSplitsTheCommit() throws Exception {
+		TodoList list = repository.createTodoList("Groceries");
+		TodoItem milk = repository.createTodo(list.getId(), "milk", "", false);
+		WriteQueue queue = TodoDatabase.getWriteQueue();
+		CompletableFuture<Void> blocker = blockWriter(queue);
+		long batches = queue.getBatchCount();
+
+		// Far more writes than executor threads and queue slots
+		List<DeferredResult<TodoItem>> writes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			TodoItemController.CreateItemRequest request = new TodoItemController.CreateItemRequest();
+			request.setListId(list.getId());
+			request.setTitle("item " + i);
+			writes.add(controller.createTodo(request));
+		}
+		assertEquals(0, executor.getActiveCount());
+		assertEquals("milk", await(controller.getTodoById(milk.getId())).getTitle());
+		for (DeferredResult<TodoItem> write : writes) {
+			assertFalse(write.hasResult());
+		}
+
+		release.countDown();
+		blocker.get(5, TimeUnit.SECONDS);
+		for (DeferredResult<TodoItem> write : writes) {
+			assertNotNull(await(write));
+		}
+		// The blocker's batch and one batch for the whole burst
+		assertEquals(batches + 2, queue.getBatchCount());
+	}
+
+	/**
+	 * Occupy the writer with a task that waits for the release latch.
+	 */
+	private CompletableFuture<Void> blockWriter(WriteQueue queue) throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CompletableFuture<Void> blocker = queue.submitAsync(connection -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new SQLException("Interrupted while blocking the writer", e);
+			}
+			return null;
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return blocker;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T await(DeferredResult<T> deferred) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!deferred.hasResult()) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("No result within 5 seconds");
+			}
+			Thread.sleep(5);
+		}
+		return (T) deferred.getResult();
+	}
+}
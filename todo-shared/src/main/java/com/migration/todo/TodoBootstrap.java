@@ -0,0 +1,69 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a client needs for its first screen: all lists with their
+ * counts, and the first page of the selected list's items, read in one
+ * transaction. Must be serializable for GWT RPC.
+ * {@link #getListId()} is the list the items belong to, or 0 when there are
+ * no lists; continue with its page's next cursor.
+ */
+public class TodoBootstrap implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private List<TodoList> lists = new ArrayList<TodoList>();
+	private long listId;
+	private TodoItemPage items = new TodoItemPage();
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoBootstrap() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoBootstrap(List<TodoList> lists, long listId, TodoItemPage items) {
+		this.lists = lists;
+		this.listId = listId;
+		this.items = items;
+	}
+
+	// Getters and Setters
+	public List<TodoList> getLists() {
+		return lists;
+	}
+
+	public void setLists(List<TodoList> lists) {
+		this.lists = lists;
+	}
+
+	public long getListId() {
+		return listId;
+	}
+
+	public void setListId(long listId) {
+		this.listId = listId;
+	}
+
+	public TodoItemPage getItems() {
+		return items;
+	}
+
+	public void setItems(TodoItemPage items) {
+		this.items = items;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoBootstrap{" +
+				"lists=" + lists.size() +
+				", listId=" + listId +
+				", items=" + items +
+				'}';
+	}
+}
@@ -0,0 +1,72 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change events of one list after a given sequence number. Must be
+ * serializable for GWT RPC.
+ * <p>
+ * Pass {@link #getLastSequence()} to the next poll. When {@link #isReset()}
+ * is true the requested position is no longer available (it is too old or
+ * from before a server restart), so the client must reload the list and
+ * continue from the returned sequence.
+ * </p>
+ */
+public class TodoChangeBatch implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private List<TodoChangeEvent> events = new ArrayList<TodoChangeEvent>();
+	private long lastSequence;
+	private boolean reset;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoChangeBatch() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoChangeBatch(List<TodoChangeEvent> events, long lastSequence, boolean reset) {
+		this.events = events;
+		this.lastSequence = lastSequence;
+		this.reset = reset;
+	}
+
+	// Getters and Setters
+	public List<TodoChangeEvent> getEvents() {
+		return events;
+	}
+
+	public void setEvents(List<TodoChangeEvent> events) {
+		this.events = events;
+	}
+
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	public void setLastSequence(long lastSequence) {
+		this.lastSequence = lastSequence;
+	}
+
+	public boolean isReset() {
+		return reset;
+	}
+
+	public void setReset(boolean reset) {
+		this.reset = reset;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoChangeBatch{" +
+				"events=" + events.size() +
+				", lastSequence=" + lastSequence +
+				", reset=" + reset +
+				'}';
+	}
+}
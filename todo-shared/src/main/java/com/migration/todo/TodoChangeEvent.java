@@ -0,0 +1,92 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+
+/**
+ * One committed change to a todo list, as pushed by the change feed.
+ * Must be serializable for GWT RPC.
+ */
+public class TodoChangeEvent implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Kind of change. The item is null for deletions.
+	 */
+	public enum Type {
+		CREATED, UPDATED, TOGGLED, DELETED, LIST_DELETED
+	}
+
+	private long sequence;
+	private Type type;
+	private long listId;
+	private long itemId;
+	private TodoItem item;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoChangeEvent() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoChangeEvent(long sequence, Type type, long listId, long itemId, TodoItem item) {
+		this.sequence = sequence;
+		this.type = type;
+		this.listId = listId;
+		this.itemId = itemId;
+		this.item = item;
+	}
+
+	// Getters and Setters
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public long getListId() {
+		return listId;
+	}
+
+	public void setListId(long listId) {
+		this.listId = listId;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public void setItemId(long itemId) {
+		this.itemId = itemId;
+	}
+
+	public TodoItem getItem() {
+		return item;
+	}
+
+	public void setItem(TodoItem item) {
+		this.item = item;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoChangeEvent{" +
+				"sequence=" + sequence +
+				", type=" + type +
+				", listId=" + listId +
+				", itemId=" + itemId +
+				'}';
+	}
+}
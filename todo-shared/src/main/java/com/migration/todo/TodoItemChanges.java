@@ -0,0 +1,106 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Items of a list changed or deleted after a given change version. Must be
+ * serializable for GWT RPC.
+ * <p>
+ * Apply the items and deletions to local state, then ask again with
+ * {@link #getVersion()}. Version 0 returns the whole list; the answer is then
+ * marked {@link #isFullSync()}. If {@link #isHasMore()} is true, ask again
+ * straight away for the rest, passing the full sync flag back along with the
+ * version. If {@link #isReset()} is true, the version asked for is older than
+ * the deletions the server still remembers: discard the local copy and ask
+ * again from version 0.
+ * </p>
+ */
+public class TodoItemChanges implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private List<TodoItem> items = new ArrayList<TodoItem>();
+	private List<Long> deletedIds = new ArrayList<Long>();
+	private long version;
+	private boolean hasMore;
+	private boolean fullSync;
+	private boolean reset;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoItemChanges() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoItemChanges(List<TodoItem> items, List<Long> deletedIds, long version, boolean hasMore) {
+		this.items = items;
+		this.deletedIds = deletedIds;
+		this.version = version;
+		this.hasMore = hasMore;
+	}
+
+	// Getters and Setters
+	public List<TodoItem> getItems() {
+		return items;
+	}
+
+	public void setItems(List<TodoItem> items) {
+		this.items = items;
+	}
+
+	public List<Long> getDeletedIds() {
+		return deletedIds;
+	}
+
+	public void setDeletedIds(List<Long> deletedIds) {
+		this.deletedIds = deletedIds;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public boolean isHasMore() {
+		return hasMore;
+	}
+
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+
+	public boolean isFullSync() {
+		return fullSync;
+	}
+
+	public void setFullSync(boolean fullSync) {
+		this.fullSync = fullSync;
+	}
+
+	public boolean isReset() {
+		return reset;
+	}
+
+	public void setReset(boolean reset) {
+		this.reset = reset;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoItemChanges{" +
+				"items=" + items.size() +
+				", deletedIds=" + deletedIds.size() +
+				", version=" + version +
+				", hasMore=" + hasMore +
+				", fullSync=" + fullSync +
+				", reset=" + reset +
+				'}';
+	}
+}
@@ -0,0 +1,69 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a list's items in id order. Must be serializable for GWT RPC.
+ * Pass {@link #getNextCursor()} as the "after" id to fetch the following
+ * page; it is null once the last page has been returned. The first page of a
+ * list also carries the list's change version ({@link #getVersion()}, 0 on
+ * later pages): the items of all pages are up to date with at least that
+ * version, so the changes since it bring them fully up to date.
+ */
+public class TodoItemPage implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private List<TodoItem> items = new ArrayList<TodoItem>();
+	private Long nextCursor;
+	private long version;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoItemPage() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoItemPage(List<TodoItem> items, Long nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	// Getters and Setters
+	public List<TodoItem> getItems() {
+		return items;
+	}
+
+	public void setItems(List<TodoItem> items) {
+		this.items = items;
+	}
+
+	public Long getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(Long nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoItemPage{" +
+				"items=" + items.size() +
+				", nextCursor=" + nextCursor +
+				", version=" + version +
+				'}';
+	}
+}
@@ -4,13 +4,16 @@ import java.io.Serializable;
 
 /**
  * Represents a todo list container with a name.
- * A TodoList can contain multiple TodoItems.
+ * A TodoList can contain multiple TodoItems; their total and completed counts
+ * are kept up to date by the database on every item write.
  */
 public class TodoList implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	private long id;
 	private String name;
+	private int itemCount;
+	private int completedCount;
 
 	/**
 	 * Default constructor (required for GWT serialization).
@@ -33,6 +36,16 @@ public class TodoList implements Serializable {
 		this.name = name;
 	}
 
+	/**
+	 * Full constructor with the list summary.
+	 */
+	public TodoList(long id, String name, int itemCount, int completedCount) {
+		this.id = id;
+		this.name = name;
+		this.itemCount = itemCount;
+		this.completedCount = completedCount;
+	}
+
 	// Getters and Setters
 	public long getId() {
 		return id;
@@ -50,11 +63,29 @@ public class TodoList implements Serializable {
 		this.name = name;
 	}
 
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	public void setItemCount(int itemCount) {
+		this.itemCount = itemCount;
+	}
+
+	public int getCompletedCount() {
+		return completedCount;
+	}
+
+	public void setCompletedCount(int completedCount) {
+		this.completedCount = completedCount;
+	}
+
 	@Override
 	public String toString() {
 		return "TodoList{" +
 				"id=" + id +
 				", name='" + name + '\'' +
+				", itemCount=" + itemCount +
+				", completedCount=" + completedCount +
 				'}';
 	}
 }
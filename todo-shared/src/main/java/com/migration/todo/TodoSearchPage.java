@@ -0,0 +1,56 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of full-text search results, best match first. Must be
+ * serializable for GWT RPC. Pass {@link #getNextOffset()} as the offset to
+ * fetch the following page; it is null once the last page has been returned.
+ */
+public class TodoSearchPage implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private List<TodoSearchResult> results = new ArrayList<TodoSearchResult>();
+	private Integer nextOffset;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoSearchPage() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoSearchPage(List<TodoSearchResult> results, Integer nextOffset) {
+		this.results = results;
+		this.nextOffset = nextOffset;
+	}
+
+	// Getters and Setters
+	public List<TodoSearchResult> getResults() {
+		return results;
+	}
+
+	public void setResults(List<TodoSearchResult> results) {
+		this.results = results;
+	}
+
+	public Integer getNextOffset() {
+		return nextOffset;
+	}
+
+	public void setNextOffset(Integer nextOffset) {
+		this.nextOffset = nextOffset;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoSearchPage{" +
+				"results=" + results.size() +
+				", nextOffset=" + nextOffset +
+				'}';
+	}
+}
@@ -0,0 +1,65 @@
+package com.migration.todo;
+
+import java.io.Serializable;
+
+/**
+ * One full-text search hit. Must be serializable for GWT RPC.
+ * The snippet is HTML-escaped text around the match with the matched terms
+ * wrapped in &lt;mark&gt; tags; a lower rank is a better match.
+ */
+public class TodoSearchResult implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private TodoItem item;
+	private String snippet;
+	private double rank;
+
+	/**
+	 * Default constructor (required for GWT serialization).
+	 */
+	public TodoSearchResult() {
+	}
+
+	/**
+	 * Full constructor.
+	 */
+	public TodoSearchResult(TodoItem item, String snippet, double rank) {
+		this.item = item;
+		this.snippet = snippet;
+		this.rank = rank;
+	}
+
+	// Getters and Setters
+	public TodoItem getItem() {
+		return item;
+	}
+
+	public void setItem(TodoItem item) {
+		this.item = item;
+	}
+
+	public String getSnippet() {
+		return snippet;
+	}
+
+	public void setSnippet(String snippet) {
+		this.snippet = snippet;
+	}
+
+	public double getRank() {
+		return rank;
+	}
+
+	public void setRank(double rank) {
+		this.rank = rank;
+	}
+
+	@Override
+	public String toString() {
+		return "TodoSearchResult{" +
+				"item=" + item +
+				", snippet='" + snippet + '\'' +
+				", rank=" + rank +
+				'}';
+	}
+}
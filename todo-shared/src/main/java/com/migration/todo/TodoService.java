@@ -28,12 +28,43 @@ public interface TodoService extends RemoteService {
 	 */
 	boolean deleteTodoList(long listId);
 
+	/**
+	 * Get all lists and the first page of up to limit items of one list in a
+	 * single call. Pass the list to show, or 0 (or a deleted list) for the first one.
+	 */
+	TodoBootstrap bootstrap(long listId, int limit);
+
 	// TodoItem operations
 	
 	/**
 	 * Get all todo items for a specific list.
 	 */
 	List<TodoItem> getTodoItemsByListId(long listId);
+
+	/**
+	 * Get up to limit items of a list with an id greater than afterId, in id order.
+	 * Start with afterId 0 and continue with the returned page's next cursor.
+	 */
+	TodoItemPage getTodoItemsPage(long listId, long afterId, int limit);
+
+	/**
+	 * Get up to limit items of a list starting at the given position in id order,
+	 * to jump far into a long list. Continue with the returned page's next cursor.
+	 */
+	TodoItemPage getTodoItemsPageAt(long listId, int offset, int limit);
+
+	/**
+	 * Get the items of a list created, updated or deleted after the given change
+	 * version. Pass 0 for a full sync, then the returned version; pass fullSync
+	 * true to continue a full sync that has more.
+	 */
+	TodoItemChanges getChangesSince(long listId, long sinceVersion, boolean fullSync);
+
+	/**
+	 * Full-text search of item titles and descriptions, best match first.
+	 * Pass listId 0 to search all lists.
+	 */
+	TodoSearchPage searchTodos(String query, long listId, int offset, int limit);
 	
 	/**
 	 * Get a specific todo item by ID.
@@ -59,4 +90,37 @@ public interface TodoService extends RemoteService {
 	 * Toggle completion status of a todo item.
 	 */
 	TodoItem toggleTodoCompletion(long id);
+
+	// Batch TodoItem operations, each applied in a single transaction
+
+	/**
+	 * Create several todo items. Returns the created items in request order.
+	 */
+	List<TodoItem> createTodos(List<TodoItem> items);
+
+	/**
+	 * Update several todo items by id. Returns the updated item, or null where no item matched.
+	 */
+	List<TodoItem> updateTodos(List<TodoItem> items);
+
+	/**
+	 * Delete several todo items. Returns whether each id was deleted.
+	 */
+	List<Boolean> deleteTodos(List<Long> ids);
+
+	/**
+	 * Toggle completion status of several todo items. Returns the updated item, or null where no item matched.
+	 */
+	List<TodoItem> toggleTodos(List<Long> ids);
+
+	// Change feed
+
+	/**
+	 * Long-poll for changes to a list after the given sequence number. Waits up to
+	 * about 25 seconds for the first change. Pass a negative sequence to get the
+	 * current position without waiting, then keep passing the returned lastSequence.
+	 * When too many polls are waiting already, returns at once, possibly empty;
+	 * wait a little before polling again after an empty batch.
+	 */
+	TodoChangeBatch pollChangeEvents(long listId, long afterSequence);
 }
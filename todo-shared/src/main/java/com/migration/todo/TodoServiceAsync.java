@@ -15,7 +15,17 @@ public interface TodoServiceAsync {
 	
 	void deleteTodoList(long listId, AsyncCallback<Boolean> callback);
 
+	void bootstrap(long listId, int limit, AsyncCallback<TodoBootstrap> callback);
+
 	void getTodoItemsByListId(long listId, AsyncCallback<List<TodoItem>> callback);
+
+	void getTodoItemsPage(long listId, long afterId, int limit, AsyncCallback<TodoItemPage> callback);
+
+	void getTodoItemsPageAt(long listId, int offset, int limit, AsyncCallback<TodoItemPage> callback);
+
+	void getChangesSince(long listId, long sinceVersion, boolean fullSync, AsyncCallback<TodoItemChanges> callback);
+
+	void searchTodos(String query, long listId, int offset, int limit, AsyncCallback<TodoSearchPage> callback);
 	
 	void getTodoById(long id, AsyncCallback<TodoItem> callback);
 	
@@ -26,4 +36,14 @@ public interface TodoServiceAsync {
 	void deleteTodo(long id, AsyncCallback<Boolean> callback);
 	
 	void toggleTodoCompletion(long id, AsyncCallback<TodoItem> callback);
+
+	void createTodos(List<TodoItem> items, AsyncCallback<List<TodoItem>> callback);
+
+	void updateTodos(List<TodoItem> items, AsyncCallback<List<TodoItem>> callback);
+
+	void deleteTodos(List<Long> ids, AsyncCallback<List<Boolean>> callback);
+
+	void toggleTodos(List<Long> ids, AsyncCallback<List<TodoItem>> callback);
+
+	void pollChangeEvents(long listId, long afterSequence, AsyncCallback<TodoChangeBatch> callback);
 }